@@ -0,0 +1,49 @@
+package benchmarks;
+
+import core.Problem;
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
+import heuristics.SimpleVariableSelector;
+import mdd.MDD;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compilation of the restricted and relaxed MDDs rooted at the root of each problem, at fixed widths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompilationBenchmark {
+
+    @Param({"MISP", "MAX2SAT", "MCP", "MinLA"})
+    public String problem;
+
+    @Param({"10", "100", "1000"})
+    public int width;
+
+    private Problem p;
+    private MDD mdd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.p = Instances.problem(this.problem);
+        this.mdd = new MDD(this.p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new SimpleVariableSelector());
+    }
+
+    @Benchmark
+    public double solveRestricted() {
+        this.mdd.setInitialState(this.p.root());
+        return this.mdd.solveRestricted(this.width, System.currentTimeMillis(), Integer.MAX_VALUE / 1000).value();
+    }
+
+    @Benchmark
+    public double solveRelaxed() {
+        this.mdd.setInitialState(this.p.root());
+        return this.mdd.solveRelaxed(this.width, System.currentTimeMillis(), Integer.MAX_VALUE / 1000).value();
+    }
+}
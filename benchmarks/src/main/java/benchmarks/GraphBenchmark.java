@@ -0,0 +1,119 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import problems.Edge;
+import problems.MinLA;
+import problems.WeightedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@code Map<Integer, Double>[]} graph of {@code Edge.toWeightedGraph} with {@code WeightedGraph}
+ * on the graphs of {@code data/minla}.
+ * The cut benchmarks sum the weights of the edges between the first half of a random arrangement and the other
+ * vertices, as {@code MinLA.successors} does. The lookup benchmarks query the weights of random pairs of vertices:
+ * gd96c is small enough for the dense matrix of {@code WeightedGraph}, the other graphs use a binary search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+    @Param({"data/minla/small/gd96c.gra", "data/minla/bintree10.gra", "data/minla/c1y.gra"})
+    public String path;
+
+    private static final int LOOKUPS = 10000;
+
+    private Map<Integer, Double>[] map;
+    private WeightedGraph graph;
+    private int[] placed;
+    private boolean[] free;
+    private int[] pairs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.graph = MinLA.readGra(this.path).graph();
+        int n = this.graph.size();
+
+        List<Edge> edges = new ArrayList<>();
+        for (int u = 0; u < n; u++) {
+            for (int k = this.graph.begin(u); k < this.graph.end(u); k++) {
+                edges.add(new Edge(u, this.graph.neighbour(k), this.graph.weight(k)));
+            }
+        }
+        this.map = Edge.toWeightedGraph(n, edges.toArray(new Edge[0]));
+
+        Random random = new Random(Instances.SEED);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        this.placed = new int[n / 2];
+        this.free = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            if (i < n / 2) this.placed[i] = order[i];
+            else this.free[order[i]] = true;
+        }
+
+        this.pairs = new int[2 * LOOKUPS];
+        for (int i = 0; i < this.pairs.length; i++) {
+            this.pairs[i] = random.nextInt(n);
+        }
+    }
+
+    @Benchmark
+    public double mapCut() {
+        double cut = 0;
+        for (int u : this.placed) {
+            for (Map.Entry<Integer, Double> e : this.map[u].entrySet()) {
+                if (this.free[e.getKey()]) {
+                    cut += e.getValue();
+                }
+            }
+        }
+        return cut;
+    }
+
+    @Benchmark
+    public double graphCut() {
+        double cut = 0;
+        for (int u : this.placed) {
+            for (int k = this.graph.begin(u); k < this.graph.end(u); k++) {
+                if (this.free[this.graph.neighbour(k)]) {
+                    cut += this.graph.weight(k);
+                }
+            }
+        }
+        return cut;
+    }
+
+    @Benchmark
+    public double mapLookup() {
+        double sum = 0;
+        for (int i = 0; i < this.pairs.length; i += 2) {
+            Double w = this.map[this.pairs[i]].get(this.pairs[i + 1]);
+            if (w != null) {
+                sum += w;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double graphLookup() {
+        double sum = 0;
+        for (int i = 0; i < this.pairs.length; i += 2) {
+            sum += this.graph.weight(this.pairs[i], this.pairs[i + 1]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import core.Problem;
+import heuristics.SimpleVariableSelector;
+import mdd.Layer;
+import mdd.MDD;
+import mdd.State;
+import problems.Edge;
+import problems.MAX2SAT;
+import problems.MCP;
+import problems.MISP;
+import problems.MinLA;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Fixed instances used by the benchmarks.
+ * The files of {@code data/} are read relatively to the working directory, the benchmarks should be run from
+ * the root of the repository. The MCP instance is generated with a fixed seed.
+ */
+final class Instances {
+
+    static final String MISP_PATH = "data/misp/easy/brock200_2.clq";
+    static final String MAX2SAT_PATH = "data/max2sat/frb15-9-1.wcnf";
+    static final String MINLA_PATH = "data/minla/small/gd96c.gra";
+    static final int MCP_SIZE = 50;
+    static final long SEED = 12;
+
+    private Instances() {
+    }
+
+    /**
+     * @param name one of {@code MISP}, {@code MAX2SAT}, {@code MCP} or {@code MinLA}
+     * @return the instance of the given problem
+     */
+    static Problem problem(String name) {
+        switch (name) {
+            case "MISP":
+                return MISP.readDIMACS(MISP_PATH);
+            case "MAX2SAT":
+                return MAX2SAT.readDIMACS(MAX2SAT_PATH);
+            case "MCP":
+                return randomMCP(MCP_SIZE, new Random(SEED));
+            case "MinLA":
+                return MinLA.readGra(MINLA_PATH);
+            default:
+                throw new IllegalArgumentException("Unknown problem " + name);
+        }
+    }
+
+    private static MCP randomMCP(int n, Random random) {
+        LinkedList<Edge> edges = new LinkedList<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextDouble() < 0.5) {
+                    edges.add(new Edge(i, j, random.nextInt(100) - 50));
+                }
+            }
+        }
+        return new MCP(n, edges.toArray(new Edge[0]));
+    }
+
+    /**
+     * Returns the first exact layer of the problem with at least {@code width} states,
+     * or the last layer if there is none.
+     *
+     * @param problem a problem
+     * @param mdd     the decision diagram the layer belongs to
+     * @param width   the minimum width of the layer
+     * @return an exact layer of the problem
+     */
+    static Layer layer(Problem problem, MDD mdd, int width) {
+        Layer layer = new Layer(problem, mdd, problem.root(), 0);
+        while (layer.width() < width && !layer.isFinal()) {
+            layer = layer.nextLayer(Integer.MAX_VALUE, false);
+        }
+        return layer;
+    }
+
+    /**
+     * @param problem a problem
+     * @return an MDD of the problem without merge and delete selectors, to build exact layers
+     */
+    static MDD exactMDD(Problem problem) {
+        return new MDD(problem, null, null, new SimpleVariableSelector());
+    }
+
+    /**
+     * Returns copies of the states with their own representations, for the problems merging in place.
+     *
+     * @param states some states
+     * @return the copies of the states
+     */
+    static State[] copies(State[] states) {
+        State[] copies = new State[states.length];
+        for (int i = 0; i < states.length; i++) {
+            State s = states[i];
+            copies[i] = new State(s.stateRepresentation.copy(), s, s.value(), s.isExact());
+        }
+        return copies;
+    }
+}
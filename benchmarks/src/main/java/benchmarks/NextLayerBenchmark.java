@@ -0,0 +1,49 @@
+package benchmarks;
+
+import core.Problem;
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
+import heuristics.SimpleVariableSelector;
+import mdd.Layer;
+import mdd.MDD;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expansion of an exact layer of each problem into a layer of at most {@code width} states,
+ * by deleting states (restricted) or by merging them (relaxed).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NextLayerBenchmark {
+
+    @Param({"MISP", "MAX2SAT", "MCP", "MinLA"})
+    public String problem;
+
+    @Param({"10", "100", "1000"})
+    public int width;
+
+    private Layer layer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Problem p = Instances.problem(this.problem);
+        MDD mdd = new MDD(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new SimpleVariableSelector());
+        this.layer = Instances.layer(p, mdd, this.width);
+    }
+
+    @Benchmark
+    public Layer restricted() {
+        return this.layer.nextLayer(this.width, false);
+    }
+
+    @Benchmark
+    public Layer relaxed() {
+        return this.layer.nextLayer(this.width, true);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import core.Problem;
+import heuristics.*;
+import mdd.Layer;
+import org.openjdk.jmh.annotations.*;
+import problems.MAX2SAT;
+import problems.MISP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merge, delete and variable selectors on an exact layer of each problem.
+ * Half of the states of the layer are selected, as when a layer twice as wide as the maximum width is reduced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectorBenchmark {
+
+    @Param({"MISP", "MAX2SAT", "MCP", "MinLA"})
+    public String problem;
+
+    @Param({"100", "1000", "10000"})
+    public int width;
+
+    private Layer layer;
+    private int number;
+    private core.Variable[] free;
+    private VariableSelector problemVariableSelector;
+
+    private final MergeSelector minLPMerge = new MinLPMergeSelector();
+    private final MergeSelector quickMinLPMerge = new QuickMinLPMergeSelector();
+    private final DeleteSelector minLPDelete = new MinLPDeleteSelector();
+    private final DeleteSelector quickMinLPDelete = new QuickMinLPDeleteSelector();
+    private final VariableSelector simpleVariableSelector = new SimpleVariableSelector();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Problem p = Instances.problem(this.problem);
+        this.layer = Instances.layer(p, Instances.exactMDD(p), this.width);
+        this.number = this.layer.width() / 2;
+        this.free = this.layer.states().iterator().next().freeVariables();
+
+        if (p instanceof MISP) {
+            this.problemVariableSelector = new MISP.MISPVariableSelector();
+        } else if (p instanceof MAX2SAT) {
+            this.problemVariableSelector = new MAX2SAT.MAX2SATVariableSelector((MAX2SAT) p);
+        } else {
+            this.problemVariableSelector = this.simpleVariableSelector;
+        }
+    }
+
+    @Benchmark
+    public mdd.State[] minLPMerge() {
+        return this.minLPMerge.select(this.layer, this.number);
+    }
+
+    @Benchmark
+    public mdd.State[] quickMinLPMerge() {
+        return this.quickMinLPMerge.select(this.layer, this.number);
+    }
+
+    @Benchmark
+    public mdd.State[] minLPDelete() {
+        return this.minLPDelete.select(this.layer, this.number);
+    }
+
+    @Benchmark
+    public mdd.State[] quickMinLPDelete() {
+        return this.quickMinLPDelete.select(this.layer, this.number);
+    }
+
+    @Benchmark
+    public core.Variable simpleVariableSelector() {
+        return this.simpleVariableSelector.select(this.free, this.layer);
+    }
+
+    @Benchmark
+    public core.Variable problemVariableSelector() {
+        return this.problemVariableSelector.select(this.free, this.layer);
+    }
+}
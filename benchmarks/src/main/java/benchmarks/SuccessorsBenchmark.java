@@ -0,0 +1,58 @@
+package benchmarks;
+
+import core.Problem;
+import core.Variable;
+import mdd.Layer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Problem.successors} and {@code Problem.merge} on the states of an exact layer of each problem.
+ * The merged states are copied before each invocation since some problems merge the representations in place.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuccessorsBenchmark {
+
+    @Param({"MISP", "MAX2SAT", "MCP", "MinLA"})
+    public String problem;
+
+    @Param({"100"})
+    public int width;
+
+    private Problem p;
+    private mdd.State[] states;
+    private mdd.State[] toMerge;
+    private Variable var;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.p = Instances.problem(this.problem);
+        Layer layer = Instances.layer(this.p, Instances.exactMDD(this.p), this.width);
+        this.states = layer.states().toArray(new mdd.State[0]);
+        this.var = this.states[0].freeVariables()[0];
+    }
+
+    @Setup(Level.Invocation)
+    public void copyStates() {
+        this.toMerge = Instances.copies(this.states);
+    }
+
+    @Benchmark
+    public void successors(Blackhole blackhole) {
+        for (mdd.State state : this.states) {
+            blackhole.consume(this.p.successors(state, this.var));
+        }
+    }
+
+    @Benchmark
+    public mdd.State merge() {
+        return this.p.merge(this.toMerge);
+    }
+}
@@ -0,0 +1,149 @@
+package core;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable domain of an integer variable.
+ * A domain is either the full range [min, max] or a bitset of the values between min and max,
+ * so that {@code contains}, {@code size} and iterating over the values do not box integers.
+ * Since it is immutable, the same object can be shared by all the variables with this domain.
+ * The {@code Set} view boxes the values and is only kept for compatibility.
+ */
+public final class Domain extends AbstractSet<Integer> {
+
+    private static final Domain BINARY = new Domain(0, 1, null, 2);
+
+    private final int min, max;
+    private final long[] bits; // null for a full range, bit i stands for the value min + i
+    private final int size;
+
+    private Domain(int min, int max, long[] bits, int size) {
+        this.min = min;
+        this.max = max;
+        this.bits = bits;
+        this.size = size;
+    }
+
+    /**
+     * Returns the domain [min, max].
+     *
+     * @param min the minimum value of the domain
+     * @param max the maximum value of the domain
+     * @return a domain with all the values between min and max
+     */
+    public static Domain range(int min, int max) {
+        if (min == 0 && max == 1) return BINARY;
+        if (max < min) return new Domain(0, -1, null, 0);
+        return new Domain(min, max, null, max - min + 1);
+    }
+
+    /**
+     * Returns the domain with the given values.
+     *
+     * @param values the possible values
+     * @return a domain with the given values
+     */
+    public static Domain of(Collection<Integer> values) {
+        if (values instanceof Domain) return (Domain) values;
+        if (values.isEmpty()) return range(0, -1);
+
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+
+        long[] bits = new long[(int) (((long) max - min) / 64 + 1)];
+        int size = 0;
+        for (int v : values) {
+            int i = v - min;
+            if ((bits[i >>> 6] & (1L << i)) == 0) {
+                bits[i >>> 6] |= 1L << i;
+                size++;
+            }
+        }
+
+        if (size == max - min + 1) return range(min, max);
+        return new Domain(min, max, bits, size);
+    }
+
+    /**
+     * @return the smallest value of the domain
+     */
+    public int min() {
+        return this.min;
+    }
+
+    /**
+     * @return the largest value of the domain
+     */
+    public int max() {
+        return this.max;
+    }
+
+    /**
+     * Returns the value following {@code value} in the domain, values can be iterated with
+     * {@code for (int v = d.min(); v <= d.max(); v = d.next(v))}.
+     *
+     * @param value a value
+     * @return the smallest value of the domain strictly greater than {@code value}, or {@code max() + 1} if there is none
+     */
+    public int next(int value) {
+        if (value >= this.max) return this.max + 1;
+        if (value < this.min) return this.min;
+        if (this.bits == null) return value + 1;
+
+        int i = value - this.min + 1;
+        int word = i >>> 6;
+        long w = this.bits[word] & (-1L << i);
+        while (w == 0) {
+            if (++word == this.bits.length) return this.max + 1;
+            w = this.bits[word];
+        }
+        return this.min + (word << 6) + Long.numberOfTrailingZeros(w);
+    }
+
+    /**
+     * @param value a value
+     * @return {@code true} <==> the value belongs to the domain
+     */
+    public boolean contains(int value) {
+        if (value < this.min || value > this.max) return false;
+        if (this.bits == null) return true;
+        int i = value - this.min;
+        return (this.bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = size == 0 ? max + 1 : min;
+
+            public boolean hasNext() {
+                return this.next <= max;
+            }
+
+            public Integer next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int value = this.next;
+                this.next = Domain.this.next(value);
+                return value;
+            }
+        };
+    }
+}
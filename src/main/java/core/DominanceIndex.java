@@ -0,0 +1,177 @@
+package core;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Index of the dominance keys of the nodes of one layer of the branch and bound.
+ * The keys are stored in a trie branching on {@code BITS} bits of the keys at each level : the child of a node
+ * labeled c holds the keys whose bits at this level are c. The search for a superset of a key only visits
+ * the children whose label contains the bits of the key, that is a single child when all these bits are set.
+ * The keys are kept in buckets of at most {@code BUCKET} keys at the leaves, a bucket being split
+ * when it is full. Each node also knows the best value of the keys below it, so that the subtrees
+ * without a good enough value are skipped.
+ */
+final class DominanceIndex {
+
+    private static final int BITS = 4;
+    private static final int FANOUT = 1 << BITS;
+    private static final int BUCKET = 16;
+
+    private final int words, levels;
+    private final Node root = new Node();
+    private int size;
+
+    private static final class Node {
+        double best = -Double.MAX_VALUE;
+        Node[] children; // null for a leaf
+        long[][] keys = new long[2][];
+        double[] values = new double[2];
+        int size;
+    }
+
+    /**
+     * @param bits the number of bits of the keys
+     */
+    DominanceIndex(int bits) {
+        this.words = (bits + 63) >>> 6;
+        this.levels = (bits + BITS - 1) / BITS;
+    }
+
+    /**
+     * Adds a key and its value to the index.
+     * If the key is already in the index, it keeps the best of the two values.
+     *
+     * @param key   the dominance key of a node
+     * @param value the value of the node
+     */
+    void add(BitSet key, double value) {
+        if (add(this.root, 0, words(key), value)) {
+            this.size++;
+        }
+    }
+
+    /**
+     * @return {@code true} <==> the key was not in the subtree of the node
+     */
+    private boolean add(Node node, int level, long[] key, double value) {
+        node.best = Math.max(node.best, value);
+
+        if (node.children != null) {
+            int label = label(key, level);
+            if (node.children[label] == null) {
+                node.children[label] = new Node();
+            }
+            return add(node.children[label], level + 1, key, value);
+        }
+
+        for (int i = 0; i < node.size; i++) {
+            if (Arrays.equals(node.keys[i], key)) {
+                node.values[i] = Math.max(node.values[i], value);
+                return false;
+            }
+        }
+        if (node.size == node.keys.length) {
+            node.keys = Arrays.copyOf(node.keys, 2 * node.size);
+            node.values = Arrays.copyOf(node.values, 2 * node.size);
+        }
+        node.keys[node.size] = key;
+        node.values[node.size++] = value;
+
+        if (node.size > BUCKET && level < this.levels) {
+            split(node, level);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the keys of a full leaf to its children.
+     */
+    private void split(Node node, int level) {
+        long[][] keys = node.keys;
+        double[] values = node.values;
+        int n = node.size;
+
+        node.children = new Node[FANOUT];
+        node.keys = null;
+        node.values = null;
+        node.size = 0;
+
+        for (int i = 0; i < n; i++) {
+            int label = label(keys[i], level);
+            if (node.children[label] == null) {
+                node.children[label] = new Node();
+            }
+            add(node.children[label], level + 1, keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Tells if a key containing the given one was added with a value at least as good.
+     * In the strict mode, the given key itself only dominates the given value with a better value,
+     * so that a node added to the index is not dominated by itself.
+     *
+     * @param key    the dominance key of a node
+     * @param value  the value of the node
+     * @param strict {@code true} to ignore the keys equal to the given one with the same value
+     * @return {@code true} <==> the node is dominated by a node of the index
+     */
+    boolean dominated(BitSet key, double value, boolean strict) {
+        return search(this.root, 0, words(key), value, strict);
+    }
+
+    private boolean search(Node node, int level, long[] key, double value, boolean strict) {
+        if (node.best < value) {
+            return false;
+        }
+
+        if (node.children != null) {
+            int label = label(key, level);
+            // the labels containing the bits of the key, in increasing order
+            for (int c = label; c < FANOUT; c = (c + 1) | label) {
+                Node child = node.children[c];
+                if (child != null && search(child, level + 1, key, value, strict)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (int i = 0; i < node.size; i++) {
+            if (node.values[i] >= value && contains(node.keys[i], key)
+                    && (!strict || node.values[i] > value || !Arrays.equals(node.keys[i], key))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of distinct keys added to the index
+     */
+    int size() {
+        return this.size;
+    }
+
+    private static boolean contains(long[] set, long[] subset) {
+        for (int i = 0; i < set.length; i++) {
+            if ((set[i] & subset[i]) != subset[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int label(long[] key, int level) {
+        int bit = level * BITS;
+        return (int) (key[bit >>> 6] >>> (bit & 63)) & (FANOUT - 1);
+    }
+
+    private long[] words(BitSet key) {
+        long[] k = key.toLongArray();
+        if (k.length > this.words) {
+            throw new IllegalArgumentException("The dominance key has more than " + (64 * this.words) + " bits");
+        }
+        return k.length == this.words ? k : Arrays.copyOf(k, this.words);
+    }
+}
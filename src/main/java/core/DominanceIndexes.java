@@ -0,0 +1,112 @@
+package core;
+
+import java.util.BitSet;
+
+/**
+ * Dominance indexes of the layers of the branch and bound, holding at most a given number of keys.
+ * When the keys exceed the capacity, the index of the layer with the most keys is evicted :
+ * the nodes of this layer are no longer checked against the nodes added before.
+ * The indexes of the layers above a given layer can also be dropped, when no node of these layers is open anymore.
+ */
+final class DominanceIndexes {
+
+    private final DominanceIndex[] indexes; // one index per layer, null if it was not created or dropped
+    private final int bits, capacity;
+    private int firstLayer; // the indexes of the layers above it were dropped
+    private long size, evictions;
+
+    /**
+     * @param layers   the number of layers
+     * @param bits     the number of bits of the keys
+     * @param capacity the maximum number of keys in the indexes of all the layers
+     */
+    DominanceIndexes(int layers, int bits, int capacity) {
+        this.indexes = new DominanceIndex[layers];
+        this.bits = bits;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Tells if a key is dominated by a key of the same layer.
+     *
+     * @param layer  the layer of the node
+     * @param key    the dominance key of the node
+     * @param value  the value of the node
+     * @param strict {@code true} if the node is in the index : it is then not dominated by itself
+     * @return {@code true} <==> the index of the layer holds a key dominating the given one
+     */
+    boolean dominated(int layer, BitSet key, double value, boolean strict) {
+        DominanceIndex index = this.indexes[layer];
+        return index != null && index.dominated(key, value, strict);
+    }
+
+    /**
+     * Adds a key to the index of its layer, unless this index was dropped,
+     * and evicts the largest index if the capacity is exceeded.
+     *
+     * @param layer the layer of the node
+     * @param key   the dominance key of the node
+     * @param value the value of the node
+     */
+    void add(int layer, BitSet key, double value) {
+        if (layer < this.firstLayer) {
+            return;
+        }
+        DominanceIndex index = this.indexes[layer];
+        if (index == null) {
+            index = this.indexes[layer] = new DominanceIndex(this.bits);
+        }
+        int before = index.size();
+        index.add(key, value);
+        this.size += index.size() - before;
+        if (this.size > this.capacity) {
+            evict();
+        }
+    }
+
+    /**
+     * Drops the indexes of the layers above the given one, they are not filled anymore.
+     *
+     * @param layer the shallowest layer of the open nodes
+     */
+    void dropAbove(int layer) {
+        layer = Math.min(layer, this.indexes.length);
+        for (int i = this.firstLayer; i < layer; i++) {
+            if (this.indexes[i] != null) {
+                this.size -= this.indexes[i].size();
+                this.indexes[i] = null;
+            }
+        }
+        this.firstLayer = Math.max(this.firstLayer, layer);
+    }
+
+    private void evict() {
+        int largest = -1;
+        for (int i = this.firstLayer; i < this.indexes.length; i++) {
+            DominanceIndex index = this.indexes[i];
+            if (index != null && (largest < 0 || index.size() > this.indexes[largest].size())) {
+                largest = i;
+            }
+        }
+        int size = this.indexes[largest].size();
+        this.size -= size;
+        this.evictions += size;
+        this.indexes[largest] = null;
+    }
+
+    /**
+     * Adds the counters of the indexes to the given statistics.
+     *
+     * @param statistics the statistics of a resolution
+     */
+    void addTo(Statistics statistics) {
+        statistics.dominanceEvictions += this.evictions;
+    }
+
+    /**
+     * @return the number of keys in the indexes
+     */
+    long size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,507 @@
+package core;
+
+import mdd.State;
+import mdd.StateCodec;
+import mdd.StateRepresentation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Set of open nodes of the branch and bound.
+ * The nodes are kept in two indexed binary heaps sharing the same entries : a min-heap on the rank
+ * of the states, giving the order in which the nodes are explored, and a max-heap on their relaxed value,
+ * giving the best bound of the open nodes in constant time.
+ * The rank and the relaxed value are read once, when the node is added.
+ * <p>
+ * A frontier can be given a memory budget. The memory used by the nodes is approximated by the size
+ * of their binary form. When it exceeds the budget, the nodes with the lowest relaxed values are written
+ * to a memory-mapped spill file until half of the budget is used. The spilled nodes are stored in runs,
+ * used as a stack : when no node is left in memory, the last run is read back.
+ * <p>
+ * The frontier also counts its nodes per layer, so that the shallowest layer of the open nodes is known.
+ */
+public final class Frontier {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_RUN_BYTES = 1 << 30;
+
+    private Entry[] byRank = new Entry[INITIAL_CAPACITY];
+    private Entry[] byBound = new Entry[INITIAL_CAPACITY];
+    private int size; // number of nodes in memory
+    private int[] layers = new int[0]; // number of nodes in memory per layer
+
+    private final long budget;
+    private final StateCodec<StateRepresentation> codec;
+    private final State<?> root;
+    private long memory;
+
+    private final List<Run> runs = new ArrayList<>();
+    private int spilled;
+    private double spilledBound = -Double.MAX_VALUE; // greatest bound of the live runs
+    private long spills;
+    private File file;
+    private FileChannel channel;
+
+    private static final class Entry {
+        final State<?> state;
+        final double rank, bound;
+        final int bytes;
+        int rankPos, boundPos;
+        boolean removed;
+
+        Entry(State<?> state, int bytes) {
+            this.state = state;
+            this.rank = state.rank();
+            this.bound = state.relaxedValue();
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Spilled nodes stored contiguously in the spill file.
+     */
+    private static final class Run {
+        final long offset;
+        final int bytes, count, minLayer;
+        final double bound;
+        double pruned = -Double.MAX_VALUE; // greatest lower bound given to prune since the run was written
+        boolean dead;
+
+        Run(long offset, int bytes, int count, int minLayer, double bound) {
+            this.offset = offset;
+            this.bytes = bytes;
+            this.count = count;
+            this.minLayer = minLayer;
+            this.bound = bound;
+        }
+    }
+
+    /**
+     * Creates a frontier keeping all the nodes in memory.
+     */
+    public Frontier() {
+        this.budget = Long.MAX_VALUE;
+        this.codec = null;
+        this.root = null;
+    }
+
+    /**
+     * Creates a frontier spilling nodes to a file when their size exceeds the budget.
+     *
+     * @param budget the number of bytes of nodes kept in memory
+     * @param codec  the codec of the state representations of the problem
+     * @param root   the root of the problem, used to rebuild the spilled states
+     */
+    public Frontier(long budget, StateCodec<?> codec, State<?> root) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("The memory budget should be positive");
+        }
+        // the codec of a problem encodes the representations of all the states of the problem
+        @SuppressWarnings("unchecked")
+        StateCodec<StateRepresentation> c = (StateCodec<StateRepresentation>) codec;
+        this.budget = budget;
+        this.codec = c;
+        this.root = root;
+    }
+
+    /**
+     * Adds a node to the frontier.
+     *
+     * @param state an open node
+     */
+    public void add(State<?> state) {
+        insert(state);
+        if (this.memory > this.budget) {
+            spill();
+        }
+    }
+
+    private void insert(State<?> state) {
+        if (this.size == this.byRank.length) {
+            this.byRank = Arrays.copyOf(this.byRank, 2 * this.size);
+            this.byBound = Arrays.copyOf(this.byBound, 2 * this.size);
+        }
+        Entry e = new Entry(state, this.codec == null ? 0 : state.encodedSize(this.codec));
+        this.byRank[this.size] = e;
+        this.byBound[this.size] = e;
+        e.rankPos = e.boundPos = this.size;
+        this.size++;
+        this.memory += e.bytes;
+        count(state, 1);
+        siftUpRank(e.rankPos);
+        siftUpBound(e.boundPos);
+    }
+
+    /**
+     * Removes the node with the least rank among the nodes in memory.
+     * If all the nodes are spilled, the last run of spilled nodes is read back first.
+     *
+     * @return the next node to explore or {@code null} if the frontier is empty
+     */
+    public State<?> poll() {
+        while (this.size == 0 && this.spilled > 0) {
+            reload();
+        }
+        if (this.size == 0) return null;
+
+        Entry e = this.byRank[0];
+        this.size--;
+        this.memory -= e.bytes;
+        count(e.state, -1);
+
+        Entry last = this.byRank[this.size];
+        this.byRank[this.size] = null;
+        if (this.size > 0) {
+            this.byRank[0] = last;
+            last.rankPos = 0;
+            siftDownRank(0);
+        }
+
+        int i = e.boundPos;
+        last = this.byBound[this.size];
+        this.byBound[this.size] = null;
+        if (i < this.size) {
+            this.byBound[i] = last;
+            last.boundPos = i;
+            siftDownBound(i);
+            siftUpBound(last.boundPos);
+        }
+
+        return e.state;
+    }
+
+    /**
+     * @return the greatest relaxed value of the open nodes, {@code -Double.MAX_VALUE} if the frontier is empty
+     */
+    public double bestBound() {
+        double bound = this.size == 0 ? -Double.MAX_VALUE : this.byBound[0].bound;
+        return Math.max(bound, this.spilledBound);
+    }
+
+    /**
+     * Removes all the nodes whose relaxed value is not greater than the given lower bound.
+     * These nodes cannot lead to a better solution than the one of value {@code lowerBound}.
+     *
+     * @param lowerBound the value of the best solution found so far
+     * @return the number of removed nodes
+     */
+    public int prune(double lowerBound) {
+        int removed = 0;
+        for (Run run : this.runs) {
+            if (!run.dead && run.bound <= lowerBound) {
+                run.dead = true;
+                this.spilled -= run.count;
+                removed += run.count;
+            } else { // the other spilled nodes are filtered when they are read back
+                run.pruned = Math.max(run.pruned, lowerBound);
+            }
+        }
+        popDeadRuns();
+        if (this.spilledBound <= lowerBound) { // otherwise the run with the greatest bound is still alive
+            this.spilledBound = -Double.MAX_VALUE;
+        }
+
+        if (this.size > 0 && this.byBound[0].bound <= lowerBound) {
+            removed += this.size;
+            Arrays.fill(this.byRank, 0, this.size, null);
+            Arrays.fill(this.byBound, 0, this.size, null);
+            this.size = 0;
+            this.memory = 0;
+            Arrays.fill(this.layers, 0);
+            return removed;
+        }
+
+        for (int i = 0; i < this.size; i++) {
+            Entry e = this.byRank[i];
+            if (e.bound <= lowerBound) {
+                e.removed = true;
+                removed++;
+            }
+        }
+        compact();
+        return removed;
+    }
+
+    /**
+     * Returns the number of open nodes, in memory or spilled.
+     * The spilled nodes pruned individually are only discarded when they are read back and are still counted.
+     *
+     * @return the number of open nodes
+     */
+    public int size() {
+        return this.size + this.spilled;
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Returns the layer of the shallowest open node, in memory or spilled.
+     * The spilled nodes pruned individually are still taken into account until they are read back.
+     *
+     * @return the least layer number of the open nodes, {@code Integer.MAX_VALUE} if the frontier is empty
+     */
+    public int minLayer() {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < this.layers.length; i++) {
+            if (this.layers[i] > 0) {
+                min = i;
+                break;
+            }
+        }
+        for (Run run : this.runs) {
+            if (!run.dead) {
+                min = Math.min(min, run.minLayer);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @return the number of open nodes currently stored in the spill file
+     */
+    public int spilledSize() {
+        return this.spilled;
+    }
+
+    /**
+     * @return the number of nodes written to the spill file since the creation of the frontier
+     */
+    public long spills() {
+        return this.spills;
+    }
+
+    public void clear() {
+        Arrays.fill(this.byRank, 0, this.size, null);
+        Arrays.fill(this.byBound, 0, this.size, null);
+        this.size = 0;
+        this.memory = 0;
+        Arrays.fill(this.layers, 0);
+        this.runs.clear();
+        this.spilled = 0;
+        this.spilledBound = -Double.MAX_VALUE;
+    }
+
+    /**
+     * Removes all the nodes and deletes the spill file.
+     */
+    public void close() {
+        clear();
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                this.channel = null;
+                if (!this.file.delete()) {
+                    this.file.deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the nodes with the lowest relaxed values to the spill file until half of the budget is used.
+     * At least one node is kept in memory.
+     */
+    private void spill() {
+        Entry[] entries = Arrays.copyOf(this.byRank, this.size);
+        Arrays.sort(entries, Comparator.comparingDouble(e -> e.bound));
+
+        long memory = this.memory, target = this.budget / 2;
+        int count = 0;
+        while (memory > target && count < entries.length - 1) {
+            Entry e = entries[count++];
+            e.removed = true;
+            memory -= e.bytes;
+        }
+
+        int from = 0;
+        while (from < count) {
+            int to = from;
+            long bytes = 0;
+            while (to < count && (to == from || bytes + entries[to].bytes <= MAX_RUN_BYTES)) {
+                bytes += entries[to++].bytes;
+            }
+            write(entries, from, to, (int) bytes);
+            from = to;
+        }
+
+        compact();
+    }
+
+    private void write(Entry[] entries, int from, int to, int bytes) {
+        try {
+            if (this.channel == null) {
+                this.file = File.createTempFile("mdd-frontier", ".spill");
+                this.file.deleteOnExit();
+                this.channel = new RandomAccessFile(this.file, "rw").getChannel();
+            }
+
+            long offset = this.runs.isEmpty() ? 0 : end(this.runs.get(this.runs.size() - 1));
+            int minLayer = Integer.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                minLayer = Math.min(minLayer, entries[i].state.layerNumber());
+            }
+            Run run = new Run(offset, bytes, to - from, minLayer, entries[to - 1].bound); // the entries are sorted by bound
+            MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+            for (int i = from; i < to; i++) {
+                entries[i].state.encode(buffer, this.codec);
+            }
+
+            this.runs.add(run);
+            this.spilled += run.count;
+            this.spills += run.count;
+            this.spilledBound = Math.max(this.spilledBound, run.bound);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads back the last run of spilled nodes, dropping the ones that were pruned in the meantime.
+     */
+    private void reload() {
+        Run run = this.runs.remove(this.runs.size() - 1);
+        this.spilled -= run.count;
+        popDeadRuns();
+        if (run.bound == this.spilledBound) {
+            this.spilledBound = -Double.MAX_VALUE;
+            for (Run r : this.runs) {
+                if (!r.dead) {
+                    this.spilledBound = Math.max(this.spilledBound, r.bound);
+                }
+            }
+        }
+
+        MappedByteBuffer buffer;
+        try {
+            buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, run.offset, run.bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (int i = 0; i < run.count; i++) {
+            State<?> state = State.decode(buffer, this.codec, this.root);
+            if (state.relaxedValue() > run.pruned) {
+                insert(state);
+            }
+        }
+    }
+
+    private void popDeadRuns() {
+        while (!this.runs.isEmpty() && this.runs.get(this.runs.size() - 1).dead) {
+            this.runs.remove(this.runs.size() - 1);
+        }
+    }
+
+    private static long end(Run run) {
+        return run.offset + run.bytes;
+    }
+
+    /**
+     * Removes the entries marked as removed from the heaps and restores the heap properties.
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            Entry e = this.byRank[i];
+            if (!e.removed) {
+                this.byRank[kept] = e;
+                this.byBound[kept] = e;
+                e.rankPos = e.boundPos = kept;
+                kept++;
+            } else {
+                this.memory -= e.bytes;
+                count(e.state, -1);
+            }
+        }
+        Arrays.fill(this.byRank, kept, this.size, null);
+        Arrays.fill(this.byBound, kept, this.size, null);
+
+        this.size = kept;
+        for (int i = this.size / 2 - 1; i >= 0; i--) {
+            siftDownRank(i);
+            siftDownBound(i);
+        }
+    }
+
+    private void count(State<?> state, int delta) {
+        int layer = state.layerNumber();
+        if (layer >= this.layers.length) {
+            this.layers = Arrays.copyOf(this.layers, Math.max(2 * this.layers.length, layer + 1));
+        }
+        this.layers[layer] += delta;
+    }
+
+    private void siftUpRank(int i) {
+        Entry e = this.byRank[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            Entry p = this.byRank[parent];
+            if (p.rank <= e.rank) break;
+            this.byRank[i] = p;
+            p.rankPos = i;
+            i = parent;
+        }
+        this.byRank[i] = e;
+        e.rankPos = i;
+    }
+
+    private void siftDownRank(int i) {
+        Entry e = this.byRank[i];
+        int half = this.size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < this.size && this.byRank[child + 1].rank < this.byRank[child].rank) child++;
+            Entry c = this.byRank[child];
+            if (e.rank <= c.rank) break;
+            this.byRank[i] = c;
+            c.rankPos = i;
+            i = child;
+        }
+        this.byRank[i] = e;
+        e.rankPos = i;
+    }
+
+    private void siftUpBound(int i) {
+        Entry e = this.byBound[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            Entry p = this.byBound[parent];
+            if (p.bound >= e.bound) break;
+            this.byBound[i] = p;
+            p.boundPos = i;
+            i = parent;
+        }
+        this.byBound[i] = e;
+        e.boundPos = i;
+    }
+
+    private void siftDownBound(int i) {
+        Entry e = this.byBound[i];
+        int half = this.size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < this.size && this.byBound[child + 1].bound > this.byBound[child].bound) child++;
+            Entry c = this.byBound[child];
+            if (e.bound >= c.bound) break;
+            this.byBound[i] = c;
+            c.boundPos = i;
+            i = child;
+        }
+        this.byBound[i] = e;
+        e.boundPos = i;
+    }
+}
@@ -0,0 +1,69 @@
+package core;
+
+import mdd.State;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Prints the progress of the search : a line for each new solution (marked with a star)
+ * and each improvement of the bound, then the optimal solution and its assignment.
+ */
+public class PrintingListener implements SolverListener {
+
+    private final PrintStream out;
+
+    /**
+     * Prints the progress on the standard output.
+     */
+    public PrintingListener() {
+        this(System.out);
+    }
+
+    /**
+     * @param out the stream where the progress is printed
+     */
+    public PrintingListener(PrintStream out) {
+        this.out = out;
+    }
+
+    public void solutionFound(Solver solver, State solution) {
+        printInfo(solver, true);
+    }
+
+    public void boundImproved(Solver solver, double bound) {
+        printInfo(solver, false);
+    }
+
+    public synchronized void searchEnded(Solver solver, State best, boolean completed) {
+        if (!completed) {
+            return;
+        }
+
+        if (best == null) {
+            out.println("No solution found.");
+        } else {
+            out.println("\n====== Search completed ======");
+            out.println("Optimal solution : " + best.value());
+            out.println("Assignment       : ");
+            for (Variable var : best.variables()) {
+                out.println("\tVar. " + var.id + " = " + var.value());
+            }
+            out.println("Time elapsed : " + solver.runTime() + "s\n");
+        }
+    }
+
+    private synchronized void printInfo(Solver solver, boolean newSolution) {
+        String sol = "";
+        if (newSolution) sol = "*";
+        double gap = 100 * solver.gap();
+        double timeElapsed = solver.elapsedTime();
+        double upperBound = solver.upperBound();
+        if (upperBound == Double.MAX_VALUE) {
+            out.println("   |  Best sol.  Best bound |         Gap |        Time");
+            out.format(Locale.US, "%2s | %10.3f  %10s | %10.3f%% | %10.3fs%n", sol, solver.lowerBound(), "inf", gap, timeElapsed);
+        } else {
+            out.format(Locale.US, "%2s | %10.3f  %10.3f | %10.3f%% | %10.3fs%n", sol, solver.lowerBound(), upperBound, gap, timeElapsed);
+        }
+    }
+}
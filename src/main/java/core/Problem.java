@@ -2,6 +2,8 @@ package core;
 
 import mdd.State;
 
+import java.util.BitSet;
+
 /**
  * Enables solving new problems by implementing the successors and merge functions.
  * The interface {@code StateRepresentation} should also be implemented.
@@ -27,8 +29,8 @@ public interface Problem {
     /**
      * Given a state and a variable, returns the list of states reached after having assigned
      * the variable to every possible value.
-     * Should transmit the cost, the exact property, the variables and assign a valid StateRepresentation
-     * to the successors.
+     * Should transmit the cost, the exact property, the assignment (see {@code State.getSuccessor})
+     * and assign a valid StateRepresentation to the successors.
      *
      * @param s   a state
      * @param var a variable belonging to the state's variables and not assigned yet
@@ -42,8 +44,23 @@ public interface Problem {
      *
      * @param states a set of states
      * @return the resulting merged state,
-     * should have consistent {@code variables} and {@code indexes} arrays
+     * should share the assignment of one of the given states
      */
     State merge(State[] states);
 
+    /**
+     * Returns the dominance key of a state, used by the solver to discard the branch and bound nodes
+     * that cannot lead to a better solution than another node of the same layer (see {@code Solver.setDominance}).
+     * A state s is dominated by a state t if the key of s is a subset of the key of t
+     * and if the value of s is not better than the value of t : every completion of s should then also
+     * be a completion of t, with the same benefit.
+     * The keys should have at most {@code nVariables()} bits.
+     *
+     * @param state an exact state
+     * @return the dominance key of the state, {@code null} if the problem does not define a dominance
+     */
+    default BitSet dominanceKey(State state) {
+        return null;
+    }
+
 }
@@ -3,27 +3,59 @@ package core;
 import heuristics.DeleteSelector;
 import heuristics.MergeSelector;
 import heuristics.VariableSelector;
+import mdd.Cutset;
 import mdd.MDD;
 import mdd.State;
+import mdd.StateCodec;
 
-import java.util.Locale;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Implementation of the branch and bound algorithm for MDDs.
+ * The search can be run by several worker threads sharing the queue of open nodes
+ * and the best solution found so far.
  *
  * @author Vianney Coppé
  */
 public class Solver {
 
     private int maxWidth = Integer.MAX_VALUE;
+    private int nThreads = 1;
+    private long memoryBudget = Long.MAX_VALUE;
     private long startTime, endTime = -1;
-    private double lowerBound, upperBound;
+    private volatile double upperBound;
     private boolean adaptiveWidth = true;
+    private boolean batchSelection = false;
+    private Cutset cutset = Cutset.FRONTIER;
+    private boolean dominance = false;
+    private int dominanceCapacity = DEFAULT_DOMINANCE_CAPACITY;
+    private int cacheSize = 0;
+    private int expansionThreads = 1;
+    private ForkJoinPool expansionPool;
 
     private Problem problem;
-    private MDD mdd;
+    private SolverListener listener = SolverListener.NONE;
+    private MergeSelector mergeSelector;
+    private DeleteSelector deleteSelector;
+    private VariableSelector variableSelector;
+
+    private static final State[] NO_NODES = new State[0];
+    private static final int DEFAULT_DOMINANCE_CAPACITY = 1 << 20;
+
+    private final AtomicReference<State> best = new AtomicReference<>();
+    private final Object lock = new Object();
+    private Frontier q;
+    private DominanceIndexes dominanceIndexes; // null if the dominance is not checked
+    private SubproblemCache cache; // null if the subproblems are not cached
+    private Statistics statistics = new Statistics();
+    private Statistics searchStatistics;
+    private double prunedBound;
+    private State[] current;
+    private int active;
+    private boolean timedOut;
+    private Throwable failure;
 
     /**
      * Constructor of the solver : allows the user to choose heuristics.
@@ -35,7 +67,9 @@ public class Solver {
      */
     public Solver(Problem problem, MergeSelector mergeSelector, DeleteSelector deleteSelector, VariableSelector variableSelector) {
         this.problem = problem;
-        this.mdd = new MDD(problem, mergeSelector, deleteSelector, variableSelector);
+        this.mergeSelector = mergeSelector;
+        this.deleteSelector = deleteSelector;
+        this.variableSelector = variableSelector;
     }
 
     /**
@@ -45,20 +79,155 @@ public class Solver {
      */
     public State solve(int timeOut) {
         startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
-        State best = null;
-        lowerBound = -Double.MAX_VALUE;
+        best.set(null);
         upperBound = Double.MAX_VALUE;
 
-        Queue<State> q = new PriorityQueue<>(); // nodes are popped starting with the one with least value
+        // nodes are popped starting with the one with least rank
+        q = memoryBudget == Long.MAX_VALUE ?
+                new Frontier() :
+                new Frontier(memoryBudget, (StateCodec<?>) problem, problem.root());
+        dominanceIndexes = dominance ? new DominanceIndexes(problem.nVariables() + 1, problem.nVariables(), dominanceCapacity) : null;
+        cache = cacheSize > 0 ? new SubproblemCache(cacheSize) : null;
+        searchStatistics = new Statistics();
         q.add(this.problem.root());
+        index(this.problem.root());
+        searchStatistics.queuePeak = 1;
+        searchStatistics.nodesCreated = 1;
+        prunedBound = -Double.MAX_VALUE;
+        current = new State[nThreads];
+        active = 0;
+        timedOut = false;
+        failure = null;
+
+        expansionPool = expansionThreads > 1 ? new ForkJoinPool(expansionThreads) : null;
 
-        while (!q.isEmpty()) {
-            State state = q.poll();
+        Worker[] workers = new Worker[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            workers[i] = new Worker(i, timeOut);
+        }
 
-            if (state.relaxedValue() <= lowerBound) {
-                continue;
+        try {
+            if (nThreads == 1) {
+                workers[0].run();
+            } else {
+                Thread[] threads = new Thread[nThreads];
+                for (int i = 0; i < nThreads; i++) {
+                    threads[i] = new Thread(workers[i], "mdd-worker-" + i);
+                    threads[i].start();
+                }
+                for (Thread thread : threads) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for the workers", e);
+                    }
+                }
+            }
+        } finally {
+            searchStatistics.spills = q.spills();
+            q.close();
+            if (expansionPool != null) {
+                expansionPool.shutdown();
+                expansionPool = null;
             }
+        }
+
+        endTime = System.currentTimeMillis();
+
+        statistics = new Statistics();
+        if (cache != null) {
+            cache.addTo(searchStatistics);
+        }
+        if (dominanceIndexes != null) {
+            dominanceIndexes.addTo(searchStatistics);
+        }
+        statistics.add(searchStatistics);
+        for (Worker worker : workers) {
+            statistics.add(worker.mdd.statistics());
+        }
+        statistics.totalTime = System.nanoTime() - startNanos;
+
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+
+        State best = this.best.get();
+
+        if (!timedOut) {
+            upperBound = lowerBound();
+        }
+
+        listener.searchEnded(this, best, !timedOut);
+
+        return best;
+    }
+
+    /**
+     * Explores the nodes of the shared queue until it is empty and no other worker
+     * can add new nodes to it, or until the time limit is reached.
+     */
+    private class Worker implements Runnable {
+
+        private final int id;
+        private final int timeOut;
+        private final MDD mdd;
+
+        Worker(int id, int timeOut) {
+            this.id = id;
+            this.timeOut = timeOut;
+            this.mdd = new MDD(problem, mergeSelector, deleteSelector, variableSelector);
+            this.mdd.setBatchSelection(batchSelection);
+            this.mdd.setCutset(cutset);
+            this.mdd.setExpansionPool(expansionPool);
+        }
+
+        public void run() {
+            State state;
+            while ((state = next(id)) != null) {
+                State[] cutset = null;
+                try {
+                    cutset = process(state);
+                } catch (Throwable t) {
+                    fail(t);
+                } finally {
+                    done(id, cutset);
+                }
+                listener.nodeProcessed(Solver.this, state, cutset == null ? NO_NODES : cutset);
+            }
+        }
+
+        /**
+         * Compiles the restricted and relaxed MDDs rooted at the given node.
+         *
+         * @param state a node of the branch and bound
+         * @return the exact cutset to be explored, or {@code null} if the node is closed
+         */
+        private State[] process(State state) {
+            if (state.relaxedValue() <= lowerBound()) {
+                this.mdd.statistics().nodesPruned++;
+                return null;
+            }
+
+            double bound = Double.MAX_VALUE; // bound given by the cache
+            if (cache != null) {
+                bound = cache.expand(state);
+                if (bound == Double.NEGATIVE_INFINITY) { // an equivalent node was expanded with a better value
+                    this.mdd.statistics().nodesDominated++;
+                    return null;
+                }
+                if (bound <= lowerBound()) {
+                    this.mdd.statistics().nodesPruned++;
+                    return null;
+                }
+                state.setRelaxedValue(Math.min(state.relaxedValue(), bound)); // read by done for the nodes being explored
+            }
+
+            this.mdd.statistics().nodesExplored++;
 
             this.mdd.setInitialState(state);
 
@@ -68,76 +237,231 @@ public class Solver {
 
             State resultRestricted = this.mdd.solveRestricted(maxW, startTime, timeOut);
 
+            if (timeIsUp(timeOut)) {
+                return null;
+            }
 
-            if (System.currentTimeMillis() - startTime > timeOut * 1000) {
-                endTime = System.currentTimeMillis();
-                return best;
+            if (improve(resultRestricted)) {
+                listener.solutionFound(Solver.this, resultRestricted);
             }
 
-            if (best == null || resultRestricted.value() > lowerBound) {
-                best = resultRestricted;
-                lowerBound = best.value();
-                printInfo(true);
+            if (this.mdd.isExact()) {
+                if (cache != null && resultRestricted != null) {
+                    cache.bound(state, resultRestricted.value());
+                }
+                return null;
             }
 
-            if (!this.mdd.isExact()) {
-                this.mdd.setInitialState(state);
-                State resultRelaxed = this.mdd.solveRelaxed(maxW, startTime, timeOut);
+            this.mdd.setInitialState(state);
+            State resultRelaxed = this.mdd.solveRelaxed(maxW, startTime, timeOut);
+
+            if (timeIsUp(timeOut)) {
+                return null;
+            }
+
+            if (cache != null) {
+                cache.bound(state, resultRelaxed.value());
+            }
+
+            double relaxedBound = Math.min(resultRelaxed.value(), bound);
+            if (relaxedBound <= lowerBound()) {
+                return NO_NODES;
+            }
+
+            State[] cutset = this.mdd.exactCutset(lowerBound()).toArray(new State[0]);
+            for (State s : cutset) {
+                s.setRelaxedValue(Math.min(s.relaxedValue(), relaxedBound)); // the cutset may give local bounds
+            }
+            return cutset;
+        }
+    }
 
-                if (System.currentTimeMillis() - startTime > timeOut * 1000) {
-                    endTime = System.currentTimeMillis();
-                    return best;
+    /**
+     * Waits for a node to explore.
+     *
+     * @param worker the id of the calling worker
+     * @return the next node to explore or {@code null} if the search is over
+     */
+    private State next(int worker) {
+        synchronized (lock) {
+            while (true) {
+                while (q.isEmpty() && active > 0 && !timedOut && failure == null) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        timedOut = true;
+                    }
+                }
+
+                if (q.isEmpty() || timedOut || failure != null) {
+                    lock.notifyAll();
+                    return null;
+                }
+
+                State state = q.poll();
+                if (isDominated(state, true)) { // by a node added after it
+                    searchStatistics.nodesDominated++;
+                    continue;
                 }
 
-                if (resultRelaxed.value() > lowerBound) {
-                    for (State s : this.mdd.exactCutset()) {
-                        s.setRelaxedValue(resultRelaxed.value());
+                active++;
+                current[worker] = state;
+                return state;
+            }
+        }
+    }
+
+    /**
+     * Adds the cutset of a processed node to the queue, removes the nodes that cannot improve
+     * the incumbent and updates the best bound.
+     *
+     * @param worker the id of the calling worker
+     * @param cutset the exact cutset of the relaxed MDD, {@code null} if no relaxed MDD was compiled
+     */
+    private void done(int worker, State[] cutset) {
+        synchronized (lock) {
+            active--;
+            current[worker] = null;
+
+            double lowerBound = lowerBound();
+            if (lowerBound > prunedBound) { // the nodes below the incumbent would be closed when polled
+                searchStatistics.nodesPruned += q.prune(lowerBound);
+                prunedBound = lowerBound;
+            }
+
+            if (cutset != null) {
+                for (State s : cutset) {
+                    if (isDominated(s, false)) {
+                        searchStatistics.nodesDominated++;
+                    } else {
                         q.add(s);
+                        index(s);
+                        searchStatistics.nodesCreated++;
                     }
                 }
+                searchStatistics.queuePeak = Math.max(searchStatistics.queuePeak, q.size());
 
                 if (!q.isEmpty()) {
-                    double queueUpperBound = -Double.MAX_VALUE;
-                    for (State s : q) {
-                        queueUpperBound = Math.max(queueUpperBound, s.relaxedValue());
+                    double queueUpperBound = q.bestBound();
+                    for (State s : current) { // nodes still being explored by other workers
+                        if (s != null) {
+                            queueUpperBound = Math.max(queueUpperBound, s.relaxedValue());
+                        }
                     }
                     if (queueUpperBound < upperBound) {
                         upperBound = queueUpperBound;
-                        printInfo(false);
+                        listener.boundImproved(this, upperBound);
                     }
                 }
             }
+
+            dropIndexes();
+
+            lock.notifyAll();
         }
+    }
 
-        upperBound = lowerBound;
-        endTime = System.currentTimeMillis();
+    /**
+     * Tells if a node is dominated by a node of the same layer added to the queue, explored or not.
+     *
+     * @param state  a node of the branch and bound
+     * @param strict {@code true} if the node is in the index : it is then not dominated by itself
+     * @return {@code true} <==> the dominance is checked and the node is dominated
+     */
+    private boolean isDominated(State state, boolean strict) {
+        if (dominanceIndexes == null) {
+            return false;
+        }
+        BitSet key = problem.dominanceKey(state);
+        return key != null && dominanceIndexes.dominated(state.layerNumber(), key, state.value(), strict);
+    }
 
-        if (best == null) {
-            System.out.println("No solution found.");
-        } else {
-            System.out.println("\n====== Search completed ======");
-            System.out.println("Optimal solution : " + best.value());
-            System.out.println("Assignment       : ");
-            for (Variable var : best.variables) {
-                System.out.println("\tVar. " + var.id + " = " + var.value());
+    /**
+     * Adds a node added to the queue to the index of its layer.
+     */
+    private void index(State state) {
+        if (dominanceIndexes == null) {
+            return;
+        }
+        BitSet key = problem.dominanceKey(state);
+        if (key != null) {
+            dominanceIndexes.add(state.layerNumber(), key, state.value());
+        }
+    }
+
+    /**
+     * Drops the indexes of the layers above the shallowest open node, explored or not.
+     * The new nodes are below the nodes they come from, so that these indexes are not read anymore.
+     */
+    private void dropIndexes() {
+        if (dominanceIndexes == null) {
+            return;
+        }
+        int minLayer = q.minLayer();
+        for (State s : current) {
+            if (s != null) {
+                minLayer = Math.min(minLayer, s.layerNumber());
             }
-            System.out.println("Time elapsed : " + ((endTime - startTime) / 1000.0) + "s\n");
         }
+        dominanceIndexes.dropAbove(minLayer);
+    }
 
-        return best;
+    private void fail(Throwable t) {
+        synchronized (lock) {
+            if (failure == null) {
+                failure = t;
+            }
+        }
     }
 
-    private void printInfo(boolean newSolution) {
-        String sol = "";
-        if (newSolution) sol = "*";
-        double gap = 100 * gap();
-        double timeElapsed = (System.currentTimeMillis() - startTime) / 1000.0;
-        if (upperBound == Double.MAX_VALUE) {
-            System.out.println("   |  Best sol.  Best bound |         Gap |        Time");
-            System.out.format(Locale.US, "%2s | %10.3f  %10s | %10.3f%% | %10.3fs%n", sol, lowerBound, "inf", gap, timeElapsed);
-        } else {
-            System.out.format(Locale.US, "%2s | %10.3f  %10.3f | %10.3f%% | %10.3fs%n", sol, lowerBound, upperBound, gap, timeElapsed);
+    private boolean timeIsUp(int timeOut) {
+        if (System.currentTimeMillis() - startTime > timeOut * 1000L) {
+            synchronized (lock) {
+                timedOut = true;
+            }
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * Publishes a new solution if it improves the best one.
+     *
+     * @param solution a feasible solution
+     * @return {@code true} <==> the solution is the new best one
+     */
+    private boolean improve(State solution) {
+        State incumbent;
+        do {
+            incumbent = best.get();
+            if (incumbent != null && solution.value() <= incumbent.value()) {
+                return false;
+            }
+        } while (!best.compareAndSet(incumbent, solution));
+        return true;
+    }
+
+    /**
+     * @return the value of the best solution found so far, {@code -Double.MAX_VALUE} if there is none
+     */
+    public double lowerBound() {
+        State incumbent = best.get();
+        return incumbent == null ? -Double.MAX_VALUE : incumbent.value();
+    }
+
+    /**
+     * @return the best bound on the optimal value, {@code Double.MAX_VALUE} until the first relaxed MDD is compiled
+     */
+    public double upperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @return the number of seconds since the beginning of the current or last search
+     */
+    public double elapsedTime() {
+        return (System.currentTimeMillis() - startTime) / 1000.0;
     }
 
     /**
@@ -154,9 +478,130 @@ public class Solver {
         this.maxWidth = width;
     }
 
+    /**
+     * Chooses when the layers of the MDDs are reduced to the maximum width.
+     *
+     * @param batchSelection {@code true} to merge or delete states once all the states of a layer are expanded,
+     *                       {@code false} to do it after the expansion of each state
+     */
+    public void setBatchSelection(boolean batchSelection) {
+        this.batchSelection = batchSelection;
+    }
+
+    /**
+     * Chooses the exact cutset of the relaxed MDDs whose states are added to the queue of open nodes.
+     *
+     * @param cutset the kind of exact cutset, {@code Cutset.FRONTIER} by default
+     */
+    public void setCutset(Cutset cutset) {
+        this.cutset = cutset;
+    }
+
+    /**
+     * Discards the nodes dominated by another node of the same layer before compiling their MDDs,
+     * the dominance being given by {@code Problem.dominanceKey}.
+     * The nodes are checked when they are added to the queue and when they are polled.
+     * The index of a layer is dropped once no open node is above it, its size is bounded by {@code setDominanceCapacity}.
+     *
+     * @param dominance {@code true} to check the dominance between the nodes
+     */
+    public void setDominance(boolean dominance) {
+        this.dominance = dominance;
+    }
+
+    /**
+     * Bounds the number of dominance keys kept by the solver, so that the memory used by the dominance check is bounded.
+     * When the keys exceed the capacity, the index of the layer with the most keys is evicted.
+     *
+     * @param capacity the maximum number of keys in the indexes of all the layers
+     */
+    public void setDominanceCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the dominance index should be positive");
+        }
+        this.dominanceCapacity = capacity;
+    }
+
+    /**
+     * Caches the subproblems of the expanded nodes, identified by their layer and their {@code StateRepresentation}.
+     * A node whose subproblem was already expanded with a value at least as good is discarded,
+     * the bound of the other nodes is tightened with the bound found for the subproblem.
+     * Each subproblem keeps a copy of its representation, the least recently used ones are evicted.
+     *
+     * @param cacheSize the maximum number of subproblems in the cache, {@code 0} to disable it
+     */
+    public void setCacheSize(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("The size of the cache should not be negative");
+        }
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Sets the number of threads computing the successors of the states of a wide layer.
+     * The pool of threads is shared by all the workers of the branch and bound, it mostly helps
+     * at the top of the search when there are not enough open nodes to keep the workers busy.
+     *
+     * @param expansionThreads the number of threads expanding a layer, {@code 1} for a sequential expansion
+     */
+    public void setExpansionThreads(int expansionThreads) {
+        if (expansionThreads < 1) {
+            throw new IllegalArgumentException("The number of threads should be positive");
+        }
+        this.expansionThreads = expansionThreads;
+    }
+
+    /**
+     * Sets the number of threads exploring the branch and bound tree.
+     * Each thread compiles its own MDDs, the queue of open nodes and the best solution are shared.
+     *
+     * @param nThreads the number of worker threads, {@code 1} for a sequential search
+     */
+    public void setThreads(int nThreads) {
+        if (nThreads < 1) {
+            throw new IllegalArgumentException("The number of threads should be positive");
+        }
+        this.nThreads = nThreads;
+    }
+
+    /**
+     * Bounds the memory used by the queue of open nodes, the other nodes being spilled to a memory-mapped file.
+     * The problem should implement {@code StateCodec} to write its state representations.
+     *
+     * @param bytes the approximate number of bytes of open nodes kept in memory
+     */
+    public void setMemoryBudget(long bytes) {
+        if (!(problem instanceof StateCodec)) {
+            throw new IllegalArgumentException("The problem should implement StateCodec to spill open nodes");
+        }
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("The memory budget should be positive");
+        }
+        this.memoryBudget = bytes;
+    }
+
+    /**
+     * Sets the listener notified of the new solutions, the bound improvements, the processed nodes and the end of the search.
+     * Use a {@code PrintingListener} to print the progress of the search.
+     *
+     * @param listener the listener of the search events, {@code SolverListener.NONE} to ignore them
+     */
+    public void setListener(SolverListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the statistics of the last resolution, summed over all the workers.
+     *
+     * @return the counters and timings of the branch and bound and of the MDD compilations
+     */
+    public Statistics statistics() {
+        return statistics;
+    }
+
     public double gap() {
         if (upperBound == Double.MAX_VALUE) return 1;
-        return Math.abs(upperBound - lowerBound) / Math.abs(lowerBound);
+        return Math.abs(upperBound - lowerBound()) / Math.abs(lowerBound());
     }
 
     public double runTime() {
@@ -0,0 +1,55 @@
+package core;
+
+import mdd.State;
+
+/**
+ * Receives the events of the branch and bound search.
+ * All the methods do nothing by default. They can be called concurrently by the workers
+ * of a parallel search and should not block them for long.
+ */
+public interface SolverListener {
+
+    /**
+     * Listener ignoring all the events, used by default.
+     */
+    SolverListener NONE = new SolverListener() {
+    };
+
+    /**
+     * Called when a solution better than all the previous ones is found.
+     *
+     * @param solver   the solver running the search
+     * @param solution the new best solution
+     */
+    default void solutionFound(Solver solver, State solution) {
+    }
+
+    /**
+     * Called when the best bound of the open nodes decreases.
+     *
+     * @param solver the solver running the search
+     * @param bound  the new upper bound on the optimal value
+     */
+    default void boundImproved(Solver solver, double bound) {
+    }
+
+    /**
+     * Called after a node of the branch and bound is processed.
+     *
+     * @param solver the solver running the search
+     * @param node   the processed node
+     * @param cutset the nodes added to the queue, empty if the node is closed
+     */
+    default void nodeProcessed(Solver solver, State node, State[] cutset) {
+    }
+
+    /**
+     * Called once at the end of the search.
+     *
+     * @param solver    the solver running the search
+     * @param best      the best solution found, {@code null} if there is none
+     * @param completed {@code true} if the solution is proven optimal, {@code false} if the time limit was reached
+     */
+    default void searchEnded(Solver solver, State best, boolean completed) {
+    }
+}
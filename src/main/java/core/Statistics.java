@@ -0,0 +1,185 @@
+package core;
+
+import java.util.Locale;
+
+/**
+ * Counters and timings of a resolution.
+ * Each MDD updates its own statistics without synchronization, the solver sums the statistics
+ * of its workers at the end of the search.
+ */
+public class Statistics {
+
+    private static final String[] NAMES = {
+            "nodesExplored", "nodesPruned", "nodesDominated", "nodesCreated", "queuePeak", "spills",
+            "dominanceEvictions", "cacheHits", "cacheMisses", "cacheEvictions",
+            "layers", "maxWidth", "meanWidth", "merges", "mergedStates", "deletions", "successorCalls", "parallelLayers",
+            "restrictedTimeMs", "relaxedTimeMs", "selectionTimeMs", "totalTimeMs"
+    };
+
+    /**
+     * Branch and bound nodes whose restricted (and relaxed) MDDs were compiled.
+     */
+    public long nodesExplored;
+
+    /**
+     * Branch and bound nodes discarded because their bound is not better than the best solution.
+     */
+    public long nodesPruned;
+
+    /**
+     * Branch and bound nodes discarded because another node of the same layer dominates them.
+     */
+    public long nodesDominated;
+
+    /**
+     * Branch and bound nodes added to the queue, including the root.
+     */
+    public long nodesCreated;
+
+    /**
+     * Maximum number of open nodes in the queue of the branch and bound.
+     */
+    public long queuePeak;
+
+    /**
+     * Open nodes written to the spill file because the queue exceeded its memory budget.
+     */
+    public long spills;
+
+    /**
+     * Dominance keys discarded because the indexes of the layers exceeded their capacity.
+     */
+    public long dominanceEvictions;
+
+    /**
+     * Lookups of the subproblem cache that found an expanded node with the same layer and representation,
+     * lookups that did not, and subproblems evicted from the cache.
+     */
+    public long cacheHits, cacheMisses, cacheEvictions;
+
+    /**
+     * Layers compiled, their maximum width and the sum of their widths.
+     */
+    public long layers, maxWidth, widthSum;
+
+    /**
+     * Calls to {@code Problem.merge}, states given to these calls and states deleted from restricted layers.
+     */
+    public long merges, mergedStates, deletions;
+
+    /**
+     * Calls to {@code Problem.successors}.
+     */
+    public long successorCalls;
+
+    /**
+     * Layers whose states were expanded in parallel by the expansion pool.
+     */
+    public long parallelLayers;
+
+    /**
+     * Time spent compiling restricted and relaxed MDDs and selecting states and variables, in nanoseconds.
+     * The selection time is included in the compilation times.
+     */
+    public long restrictedTime, relaxedTime, selectionTime;
+
+    /**
+     * Duration of the whole resolution, in nanoseconds.
+     */
+    public long totalTime;
+
+    /**
+     * Adds the counters of other statistics to these ones.
+     *
+     * @param other statistics of another worker
+     */
+    public void add(Statistics other) {
+        this.nodesExplored += other.nodesExplored;
+        this.nodesPruned += other.nodesPruned;
+        this.nodesDominated += other.nodesDominated;
+        this.nodesCreated += other.nodesCreated;
+        this.queuePeak = Math.max(this.queuePeak, other.queuePeak);
+        this.spills += other.spills;
+        this.dominanceEvictions += other.dominanceEvictions;
+        this.cacheHits += other.cacheHits;
+        this.cacheMisses += other.cacheMisses;
+        this.cacheEvictions += other.cacheEvictions;
+        this.layers += other.layers;
+        this.maxWidth = Math.max(this.maxWidth, other.maxWidth);
+        this.widthSum += other.widthSum;
+        this.merges += other.merges;
+        this.mergedStates += other.mergedStates;
+        this.deletions += other.deletions;
+        this.successorCalls += other.successorCalls;
+        this.parallelLayers += other.parallelLayers;
+        this.restrictedTime += other.restrictedTime;
+        this.relaxedTime += other.relaxedTime;
+        this.selectionTime += other.selectionTime;
+        this.totalTime = Math.max(this.totalTime, other.totalTime);
+    }
+
+    /**
+     * @return the mean width of the compiled layers
+     */
+    public double meanWidth() {
+        return this.layers == 0 ? 0 : (double) this.widthSum / this.layers;
+    }
+
+    /**
+     * @return the proportion of the lookups of the subproblem cache that were hits
+     */
+    public double cacheHitRate() {
+        long lookups = this.cacheHits + this.cacheMisses;
+        return lookups == 0 ? 0 : (double) this.cacheHits / lookups;
+    }
+
+    private Object[] values() {
+        return new Object[]{
+                this.nodesExplored, this.nodesPruned, this.nodesDominated, this.nodesCreated, this.queuePeak, this.spills,
+                this.dominanceEvictions, this.cacheHits, this.cacheMisses, this.cacheEvictions,
+                this.layers, this.maxWidth, String.format(Locale.US, "%.3f", meanWidth()),
+                this.merges, this.mergedStates, this.deletions, this.successorCalls, this.parallelLayers,
+                millis(this.restrictedTime), millis(this.relaxedTime), millis(this.selectionTime), millis(this.totalTime)
+        };
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.US, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * @return the names of the columns of {@code toCSV}, separated by commas
+     */
+    public static String csvHeader() {
+        return String.join(",", NAMES);
+    }
+
+    /**
+     * @return the statistics on one line, separated by commas, in the order of {@code csvHeader}
+     */
+    public String toCSV() {
+        StringBuilder sb = new StringBuilder();
+        for (Object value : values()) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the statistics as a JSON object, with the times in milliseconds
+     */
+    public String toJSON() {
+        StringBuilder sb = new StringBuilder("{");
+        Object[] values = values();
+        for (int i = 0; i < NAMES.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('"').append(NAMES[i]).append("\": ").append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    public String toString() {
+        return toJSON();
+    }
+}
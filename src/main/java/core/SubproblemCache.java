@@ -0,0 +1,128 @@
+package core;
+
+import mdd.State;
+import mdd.StateRepresentation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Subproblems of the branch and bound nodes already expanded, identified by their layer and their
+ * {@code StateRepresentation}. For each subproblem, the cache keeps the best value of the nodes expanded
+ * with it and the best bound found on the value added by its completions.
+ * A node whose subproblem was expanded with a value at least as good cannot lead to a better solution,
+ * and the bound of the other nodes is tightened with the bound on the completions.
+ * <p>
+ * The cache holds at most a given number of subproblems, the least recently used ones being evicted.
+ * It can be shared by several workers.
+ */
+final class SubproblemCache {
+
+    private final int capacity;
+    private final Map<Key, Subproblem> entries;
+    private long hits, misses, evictions;
+
+    private static final class Key {
+        final int layer;
+        final StateRepresentation stateRepresentation;
+        final int hash;
+
+        Key(int layer, StateRepresentation stateRepresentation) {
+            this.layer = layer;
+            this.stateRepresentation = stateRepresentation;
+            this.hash = 31 * stateRepresentation.hashCode() + layer;
+        }
+
+        public int hashCode() {
+            return this.hash;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return this.layer == other.layer && this.stateRepresentation.equals(other.stateRepresentation);
+        }
+    }
+
+    private static final class Subproblem {
+        double value; // best value of the expanded nodes
+        double completion = Double.MAX_VALUE; // bound on the value added below the nodes
+    }
+
+    /**
+     * @param capacity the maximum number of subproblems kept in the cache
+     */
+    SubproblemCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, Subproblem>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Subproblem> eldest) {
+                if (size() > SubproblemCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Records that a node is expanded and returns the bound given by the cache.
+     *
+     * @param state a node of the branch and bound
+     * @return {@code Double.NEGATIVE_INFINITY} if the subproblem of the node was already expanded with
+     * a value at least as good, and otherwise an upper bound on the value of the solutions below the node,
+     * {@code Double.MAX_VALUE} if it is unknown
+     */
+    synchronized double expand(State state) {
+        Key key = new Key(state.layerNumber(), state.stateRepresentation);
+        Subproblem subproblem = this.entries.get(key);
+
+        if (subproblem == null) {
+            this.misses++;
+            subproblem = new Subproblem();
+            subproblem.value = state.value();
+            // the key keeps its own copy of the representation, the node may share it with other states
+            this.entries.put(new Key(key.layer, key.stateRepresentation.copy()), subproblem);
+            return Double.MAX_VALUE;
+        }
+
+        this.hits++;
+        if (state.value() <= subproblem.value) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        subproblem.value = state.value();
+        return subproblem.completion == Double.MAX_VALUE ? Double.MAX_VALUE : state.value() + subproblem.completion;
+    }
+
+    /**
+     * Tightens the bound on the completions of the subproblem of a node, if it is still in the cache.
+     *
+     * @param state a node of the branch and bound
+     * @param bound an upper bound on the value of the solutions below the node
+     */
+    synchronized void bound(State state, double bound) {
+        Subproblem subproblem = this.entries.get(new Key(state.layerNumber(), state.stateRepresentation));
+        if (subproblem != null) {
+            subproblem.completion = Math.min(subproblem.completion, bound - state.value());
+        }
+    }
+
+    /**
+     * Adds the counters of the cache to the given statistics.
+     *
+     * @param statistics the statistics of a resolution
+     */
+    synchronized void addTo(Statistics statistics) {
+        statistics.cacheHits += this.hits;
+        statistics.cacheMisses += this.misses;
+        statistics.cacheEvictions += this.evictions;
+    }
+
+    /**
+     * @return the number of subproblems in the cache
+     */
+    synchronized int size() {
+        return this.entries.size();
+    }
+}
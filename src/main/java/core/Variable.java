@@ -1,6 +1,5 @@
 package core;
 
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -9,7 +8,7 @@ import java.util.Set;
 public class Variable {
 
     public int id;
-    private Set<Integer> domain;
+    private Domain domain;
     private int value;
 
     /**
@@ -22,10 +21,7 @@ public class Variable {
     public Variable(int id, int min, int max) {
         this.id = id;
         this.value = -1;
-        this.domain = new HashSet<>();
-        for (int i = min; i <= max; i++) {
-            this.domain.add(i);
-        }
+        this.domain = Domain.range(min, max);
     }
 
     /**
@@ -45,9 +41,7 @@ public class Variable {
      * @param domain the possible values of the variable
      */
     public Variable(int id, Set<Integer> domain) {
-        this.id = id;
-        this.value = -1;
-        this.domain = domain;
+        this(id, domain, -1);
     }
 
     /**
@@ -57,6 +51,10 @@ public class Variable {
      * @param domain the possible values of the variable
      */
     public Variable(int id, Set<Integer> domain, int value) {
+        this(id, Domain.of(domain), value);
+    }
+
+    private Variable(int id, Domain domain, int value) {
         this.id = id;
         this.value = value;
         this.domain = domain;
@@ -65,18 +63,18 @@ public class Variable {
     /**
      * Returns a copy of the variable.
      *
-     * @return an different object {@code Variable} with the same domain
+     * @return an different object {@code Variable} sharing the same domain
      */
     public Variable copy() {
         return new Variable(this.id, this.domain, this.value);
     }
 
     /**
-     * Returns a {@code Set} representation of the domain.
+     * Returns the domain of the variable.
      *
-     * @return a {@code Set} with the possible values of the variable
+     * @return a {@code Domain} with the possible values of the variable
      */
-    public Set<Integer> domain() {
+    public Domain domain() {
         return this.domain;
     }
 
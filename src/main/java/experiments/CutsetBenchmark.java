@@ -0,0 +1,117 @@
+package experiments;
+
+import core.Problem;
+import core.Solver;
+import core.Statistics;
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
+import heuristics.SimpleVariableSelector;
+import heuristics.VariableSelector;
+import mdd.Cutset;
+import mdd.State;
+import problems.Edge;
+import problems.MAX2SAT;
+import problems.MCP;
+import problems.MISP;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the exact cutsets of the relaxed MDDs on the MISP and MAX2SAT instances
+ * and on random MCP instances, solved with the adaptive width and with a width of 4.
+ * Each instance is solved once per kind of cutset, the output contains one line per run :
+ * instance, cutset, time, value found, nodes created, nodes explored and peak size of the queue.
+ */
+public class CutsetBenchmark {
+
+    public static void main(String[] args) {
+        int timeLimit = args.length > 0 ? Integer.valueOf(args[0]) : 60;
+        String fileName = args.length > 1 ? args[1] : "cutsets.txt";
+
+        try {
+            PrintWriter out = new PrintWriter(fileName);
+            out.println("instance cutset time value nodesCreated nodesExplored queuePeak");
+
+            for (File file : instances("data/misp/easy", ".clq")) {
+                for (Cutset cutset : Cutset.values()) {
+                    MISP p = MISP.readDIMACS(file.getPath());
+                    run(out, file.getName(), p, new MISP.MISPVariableSelector(), cutset, Integer.MAX_VALUE, timeLimit);
+                }
+            }
+
+            for (File file : instances("data/max2sat", ".wcnf")) {
+                for (Cutset cutset : Cutset.values()) {
+                    MAX2SAT p = MAX2SAT.readDIMACS(file.getPath());
+                    run(out, file.getName(), p, new MAX2SAT.MAX2SATVariableSelector(p), cutset, Integer.MAX_VALUE, timeLimit);
+                }
+            }
+
+            for (int n : new int[]{10, 20, 30, 40}) {
+                for (Cutset cutset : Cutset.values()) {
+                    MCP p = randomMCP(new Random(12), n);
+                    run(out, "mcp" + n, p, new SimpleVariableSelector(), cutset, Integer.MAX_VALUE, timeLimit);
+                }
+            }
+
+            // narrow MDDs, where the frontier is far below the last exact layer
+            for (int n : new int[]{10, 20, 30, 40}) {
+                for (Cutset cutset : Cutset.values()) {
+                    MCP p = randomMCP(new Random(12), n);
+                    run(out, "mcp" + n + "-w4", p, new SimpleVariableSelector(), cutset, 4, timeLimit);
+                }
+            }
+
+            out.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static File[] instances(String path, String extension) {
+        File[] files = new File(path).listFiles((dir, name) -> name.endsWith(extension));
+        if (files == null) return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * @return a graph with n vertices, each one having 1 to 5 edges of weight in [-50,49] to random vertices
+     */
+    private static MCP randomMCP(Random random, int n) {
+        LinkedList<Edge> edges = new LinkedList<>();
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < 1 + random.nextInt(5); j++) {
+                Edge e = new Edge(i, random.nextInt(n), random.nextInt(100) - 50);
+                if (e.v != i) {
+                    edges.add(e);
+                }
+            }
+        }
+
+        return new MCP(n, edges.toArray(new Edge[0]));
+    }
+
+    /**
+     * Solves the problem with the given cutset and maximum width, the width being adaptive if it is {@code Integer.MAX_VALUE}.
+     */
+    private static void run(PrintWriter out, String name, Problem p, VariableSelector vs, Cutset cutset, int width, int timeLimit) {
+        Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), vs);
+        solver.setCutset(cutset);
+        if (width < Integer.MAX_VALUE) {
+            solver.setWidth(width);
+        }
+        State result = solver.solve(timeLimit);
+        Statistics statistics = solver.statistics();
+
+        out.printf(Locale.US, "%s %s %.3f %.0f %d %d %d\n", name, cutset, solver.runTime(),
+                result == null ? Double.NaN : result.value(),
+                statistics.nodesCreated, statistics.nodesExplored, statistics.queuePeak);
+        out.flush();
+    }
+}
@@ -0,0 +1,120 @@
+package experiments;
+
+import core.Variable;
+import heuristics.SimpleVariableSelector;
+import mdd.Layer;
+import mdd.MDD;
+import mdd.State;
+import mdd.StateRepresentation;
+import mdd.StateTable;
+import problems.Edge;
+import problems.MISP;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the open-addressing {@code StateTable} used by the layers with the previous
+ * {@code HashMap<StateRepresentation, State>} on wide exact layers of random sparse MISP instances.
+ * For each target width, all the successors of a layer are inserted (with duplicate detection)
+ * and half of the resulting states are removed again.
+ */
+public class LayerBenchmark {
+
+    private static final int REPETITIONS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(12);
+        int[] widths = {1000, 10000, 50000};
+
+        for (int target : widths) {
+            List<State> successors = successorsOfLayer(random, target);
+
+            long map = 0, table = 0;
+            for (int r = 0; r < REPETITIONS + 5; r++) { // the first runs only warm up the JIT
+                long t0 = System.nanoTime();
+                int w1 = withHashMap(successors);
+                long t1 = System.nanoTime();
+                int w2 = withStateTable(successors, target);
+                long t2 = System.nanoTime();
+
+                if (w1 != w2) {
+                    throw new IllegalStateException("Both tables should contain the same states");
+                }
+                if (r >= 5) {
+                    map += t1 - t0;
+                    table += t2 - t1;
+                }
+            }
+
+            System.out.format(Locale.US, "width %6d : %8d successors | HashMap %8.3f ms | StateTable %8.3f ms%n",
+                    target, successors.size(), map / 1e6 / REPETITIONS, table / 1e6 / REPETITIONS);
+        }
+    }
+
+    /**
+     * Builds exact layers of a random sparse MISP instance until one is at least {@code target} states wide
+     * and returns all the successors of this layer.
+     */
+    private static List<State> successorsOfLayer(Random random, int target) {
+        int n = 200;
+        LinkedList<Edge> edges = new LinkedList<>();
+        for (int i = 0; i < n; i++) {
+            int v = random.nextInt(n);
+            if (v != i) edges.add(new Edge(i, v));
+        }
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1 + random.nextInt(10);
+        }
+
+        MISP p = new MISP(n, weights, edges.toArray(new Edge[0]));
+        MDD mdd = new MDD(p, null, null, new SimpleVariableSelector());
+        Layer layer = new Layer(p, mdd, p.root(), 0);
+        while (layer.width() < target) {
+            layer = layer.nextLayer(Integer.MAX_VALUE, false);
+        }
+
+        List<State> successors = new ArrayList<>();
+        Variable var = null;
+        for (State state : layer.states()) {
+            if (var == null) var = state.freeVariables()[0];
+            for (State succ : p.successors(state, var)) {
+                successors.add(succ);
+            }
+        }
+        return successors;
+    }
+
+    private static int withHashMap(List<State> successors) {
+        Map<StateRepresentation, State> states = new HashMap<>();
+        for (State state : successors) {
+            State existing = states.get(state.stateRepresentation);
+            if (existing == null) states.put(state.stateRepresentation, state);
+        }
+        int width = states.size();
+        int i = 0;
+        for (State state : successors) {
+            if (i++ % 2 == 0) states.remove(state.stateRepresentation);
+        }
+        return width;
+    }
+
+    private static int withStateTable(List<State> successors, int target) {
+        StateTable states = new StateTable(target);
+        for (State state : successors) {
+            states.putIfAbsent(state);
+        }
+        int width = states.size();
+        int i = 0;
+        for (State state : successors) {
+            if (i++ % 2 == 0) states.remove(state);
+        }
+        return width;
+    }
+}
@@ -0,0 +1,79 @@
+package experiments;
+
+import core.Solver;
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
+import mdd.State;
+import problems.MISP;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Solves the MISP instances of {@code data/misp/all} with a bounded queue of open nodes.
+ * The output contains one line per instance : instance, budget (MB), load time, solve time, peak used heap (MB),
+ * value found, expected optimum.
+ * Run with a fixed heap (e.g. {@code -Xmx512m}) to check that the search does not run out of memory.
+ */
+public class MemoryBudget {
+
+    public static void main(String[] args) {
+        long budget = args.length > 0 ? Long.valueOf(args[0]) : 64;
+        int timeLimit = args.length > 1 ? Integer.valueOf(args[1]) : 10 * 60;
+        String fileName = args.length > 2 ? args[2] : "memory.txt";
+
+        File[] files = new File("data/misp/all").listFiles((dir, name) -> name.endsWith(".clq"));
+        if (files == null) return;
+        Arrays.sort(files);
+
+        try {
+            PrintWriter out = new PrintWriter(fileName);
+
+            for (File file : files) {
+                MISP p = MISP.readDIMACS(file.getPath());
+                Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new MISP.MISPVariableSelector());
+                solver.setMemoryBudget(budget << 20);
+
+                HeapSampler sampler = new HeapSampler();
+                sampler.start();
+                State result = solver.solve(timeLimit);
+                sampler.interrupt();
+                sampler.join();
+
+                out.printf(Locale.US, "%s %d %.3f %.3f %d %.0f %.0f\n", file.getName(), budget, p.loadTime, solver.runTime(),
+                        sampler.peak >> 20, result == null ? Double.NaN : result.value(), p.opt);
+                out.flush();
+            }
+
+            out.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Records the peak heap usage while the solver runs.
+     */
+    private static class HeapSampler extends Thread {
+
+        volatile long peak;
+
+        HeapSampler() {
+            setDaemon(true);
+        }
+
+        public void run() {
+            Runtime runtime = Runtime.getRuntime();
+            while (!isInterrupted()) {
+                peak = Math.max(peak, runtime.totalMemory() - runtime.freeMemory());
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
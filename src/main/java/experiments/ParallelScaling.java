@@ -0,0 +1,71 @@
+package experiments;
+
+import core.Problem;
+import core.Solver;
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
+import heuristics.VariableSelector;
+import mdd.State;
+import problems.MAX2SAT;
+import problems.MISP;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures the speed-up of the parallel branch and bound on the MISP and MAX2SAT instances.
+ * Each instance is solved with 1, 2, 4, ... threads up to the number of available processors.
+ * The output contains one line per run : instance, threads, time, value found, expected optimum.
+ */
+public class ParallelScaling {
+
+    public static void main(String[] args) {
+        int timeLimit = args.length > 0 ? Integer.valueOf(args[0]) : 10 * 60;
+        String fileName = args.length > 1 ? args[1] : "scaling.txt";
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        if (maxThreads == 1) {
+            System.err.println("Only one processor is available, the speed-up cannot be measured");
+        }
+
+        try {
+            PrintWriter out = new PrintWriter(fileName);
+
+            for (File file : instances("data/misp/all", ".clq")) {
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                    MISP p = MISP.readDIMACS(file.getPath());
+                    run(out, file, p, new MISP.MISPVariableSelector(), p.opt, threads, timeLimit);
+                }
+            }
+
+            for (File file : instances("data/max2sat", ".wcnf")) {
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                    MAX2SAT p = MAX2SAT.readDIMACS(file.getPath());
+                    run(out, file, p, new MAX2SAT.MAX2SATVariableSelector(p), p.opt, threads, timeLimit);
+                }
+            }
+
+            out.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static File[] instances(String path, String extension) {
+        File[] files = new File(path).listFiles((dir, name) -> name.endsWith(extension));
+        if (files == null) return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static void run(PrintWriter out, File file, Problem p, VariableSelector vs, double opt, int threads, int timeLimit) {
+        Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), vs);
+        solver.setThreads(threads);
+        State result = solver.solve(timeLimit);
+
+        out.printf(Locale.US, "%s %d %.3f %.0f %.0f\n", file.getName(), threads, solver.runTime(),
+                result == null ? Double.NaN : result.value(), opt);
+        out.flush();
+    }
+}
@@ -0,0 +1,74 @@
+package experiments;
+
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
+import heuristics.SimpleVariableSelector;
+import mdd.MDD;
+import mdd.State;
+import problems.Edge;
+
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the reduction of the layers after each expansion with the reduction once per layer
+ * on random MinLA instances, at the widths used in {@code experiments.MinLA}.
+ * For each width, the restricted and relaxed MDDs of the root are compiled with both modes
+ * and the compilation times and bounds are reported.
+ */
+public class SelectionBenchmark {
+
+    private static final int REPETITIONS = 5;
+
+    private static Edge[] randomGraph(Random random, int n, double p) {
+        LinkedList<Edge> edges = new LinkedList<>();
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextDouble() <= p) {
+                    edges.add(new Edge(i, j, -1));
+                }
+            }
+        }
+
+        return edges.toArray(new Edge[0]);
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(12);
+        int n = args.length > 0 ? Integer.valueOf(args[0]) : 14;
+        int[] widths = {100, 1000, 10000};
+
+        problems.MinLA p = new problems.MinLA(n, randomGraph(random, n, 0.7));
+
+        for (int width : widths) {
+            for (boolean batch : new boolean[]{false, true}) {
+                MDD mdd = new MDD(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new SimpleVariableSelector());
+                mdd.setBatchSelection(batch);
+
+                long restrictedTime = 0, relaxedTime = 0;
+                double restricted = 0, relaxed = 0;
+                for (int r = 0; r <= REPETITIONS; r++) { // the first run only warms up the JIT
+                    long t0 = System.nanoTime();
+                    mdd.setInitialState(p.root());
+                    restricted = mdd.solveRestricted(width, System.currentTimeMillis(), Integer.MAX_VALUE / 1000).value();
+                    long t1 = System.nanoTime();
+                    mdd.setInitialState(p.root());
+                    relaxed = mdd.solveRelaxed(width, System.currentTimeMillis(), Integer.MAX_VALUE / 1000).value();
+                    long t2 = System.nanoTime();
+
+                    if (r > 0) {
+                        restrictedTime += t1 - t0;
+                        relaxedTime += t2 - t1;
+                    }
+                }
+
+                System.out.format(Locale.US, "width %5d %-9s | restricted %10.3f ms (%.0f) | relaxed %10.3f ms (%.0f)%n",
+                        width, batch ? "batch" : "per-state",
+                        restrictedTime / 1e6 / REPETITIONS, restricted,
+                        relaxedTime / 1e6 / REPETITIONS, relaxed);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package heuristics;
+
+import mdd.Layer;
+import mdd.State;
+
+import java.util.Arrays;
+
+/**
+ * Selects the states with the least rank in a layer without sorting it.
+ * The rank of each state is computed once and the states are partitioned with quickselect.
+ */
+final class MinLPSelection {
+
+    private MinLPSelection() {
+    }
+
+    /**
+     * Returns the {@code number} states of the layer with the least rank, in no particular order.
+     *
+     * @param layer  a layer
+     * @param number the number of states to select
+     * @return an array with the selected states
+     */
+    static State[] select(Layer layer, int number) {
+        if (number <= 0) return new State[0];
+
+        int n = layer.width();
+        State[] states = new State[n];
+        double[] ranks = new double[n];
+
+        int i = 0;
+        for (State s : layer.states()) {
+            states[i] = s;
+            ranks[i++] = s.rank();
+        }
+
+        if (number < n) {
+            partition(states, ranks, number);
+        }
+
+        return Arrays.copyOf(states, Math.min(number, n));
+    }
+
+    /**
+     * Reorders the arrays so that the {@code k} first states have the least ranks.
+     */
+    private static void partition(State[] states, double[] ranks, int k) {
+        int lo = 0, hi = states.length - 1;
+
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            // median of three as pivot
+            if (ranks[mid] < ranks[lo]) swap(states, ranks, mid, lo);
+            if (ranks[hi] < ranks[lo]) swap(states, ranks, hi, lo);
+            if (ranks[hi] < ranks[mid]) swap(states, ranks, hi, mid);
+            double pivot = ranks[mid];
+
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (ranks[i] < pivot) i++;
+                while (ranks[j] > pivot) j--;
+                if (i <= j) {
+                    swap(states, ranks, i++, j--);
+                }
+            }
+
+            // [lo, j] <= pivot <= [i, hi]
+            if (k - 1 <= j) {
+                hi = j;
+            } else if (k - 1 >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(State[] states, double[] ranks, int i, int j) {
+        State s = states[i];
+        states[i] = states[j];
+        states[j] = s;
+
+        double r = ranks[i];
+        ranks[i] = ranks[j];
+        ranks[j] = r;
+    }
+}
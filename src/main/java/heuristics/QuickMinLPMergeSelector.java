@@ -0,0 +1,17 @@
+package heuristics;
+
+import mdd.Layer;
+import mdd.State;
+
+/**
+ * Merges the nodes with the least path values, like {@code MinLPMergeSelector},
+ * but computes the rank of each state once and selects them with quickselect instead of sorting the layer.
+ */
+public class QuickMinLPMergeSelector implements MergeSelector {
+
+    @Override
+    public State[] select(Layer layer, int number) {
+        return MinLPSelection.select(layer, number);
+    }
+
+}
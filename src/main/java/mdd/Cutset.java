@@ -0,0 +1,26 @@
+package mdd;
+
+/**
+ * Exact cutsets of a relaxed MDD, whose states become the new nodes of the branch and bound.
+ */
+public enum Cutset {
+
+    /**
+     * The states of the deepest layer whose states are all exact.
+     */
+    LAST_EXACT_LAYER,
+
+    /**
+     * The exact states having a successor that is not exact, and the exact states of the last layer.
+     */
+    FRONTIER,
+
+    /**
+     * The frontier cutset, in which the states with the same {@code StateRepresentation} in the same layer
+     * are reduced to the one with the best value, and without the states whose local bound does not improve
+     * the best solution found.
+     * The local bound of a state is the best value of the last layer of the relaxed MDD reachable from it,
+     * the relaxed layers keep all their arcs to compute it.
+     */
+    HYBRID
+}
@@ -1,12 +1,12 @@
 package mdd;
 
 import core.Problem;
+import core.Statistics;
 import core.Variable;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Represents a layer of the MDD.
@@ -15,7 +15,9 @@ import java.util.Set;
  */
 public class Layer {
 
-    private Map<StateRepresentation, State> states;
+    static final int PARALLEL_THRESHOLD = 64; // minimum number of states to expand a layer in parallel
+
+    private StateTable states;
     private Problem problem;
     private MDD mdd;
     private boolean exact;
@@ -29,7 +31,19 @@ public class Layer {
      * @param number  the number of the layer
      */
     public Layer(Problem problem, MDD mdd, int number) {
-        this.states = new HashMap<>();
+        this(problem, mdd, number, 0);
+    }
+
+    /**
+     * Returns an empty layer of the problem able to contain {@code capacity} states without being resized.
+     *
+     * @param problem  the implementation of a problem
+     * @param mdd      the  associated decision diagram
+     * @param number   the number of the layer
+     * @param capacity the expected number of states in the layer
+     */
+    public Layer(Problem problem, MDD mdd, int number, int capacity) {
+        this.states = new StateTable(capacity);
         this.problem = problem;
         this.mdd = mdd;
         this.exact = true;
@@ -46,7 +60,7 @@ public class Layer {
      */
     public Layer(Problem problem, MDD mdd, State state, int number) {
         this(problem, mdd, number);
-        this.states.put(state.stateRepresentation, state);
+        this.states.putIfAbsent(state);
         this.exact = state.isExact();
     }
 
@@ -65,50 +79,173 @@ public class Layer {
      * Returns the next layer of the MDD using the {@code variableSelector} to choose the next variable
      * to assign and the {@code problem} implementation to provide the successors of all the states of
      * the layer.
+     * By default, the width of the next layer is checked after the expansion of each state.
+     * If the MDD uses batch selection, all the successors are added first and the layer is reduced once,
+     * so that it temporarily holds up to the width of this layer times the size of the domains.
+     * If the MDD has an expansion pool, the successors of wide layers are computed in parallel by chunks
+     * of about {@code width} states and then added in the same order as the sequential expansion,
+     * so that the result is the same and that only the successors of one chunk are kept at a time.
+     * If the MDD computes local bounds, the relaxed layers keep all their arcs instead of the exact ones.
      *
      * @return the next layer of the MDD
      */
     public Layer nextLayer(int width, boolean relaxed) {
         Variable nextVar = null;
-        Layer next = new Layer(this.problem, this.mdd, this.number + 1);
+        Layer next = new Layer(this.problem, this.mdd, this.number + 1, (int) Math.min(width + 1L, 2L * this.width()));
+        long limit = this.mdd.batchSelection ? Long.MAX_VALUE : width;
+        boolean arcs = relaxed && this.mdd.localBounds;
+
+        Statistics statistics = this.mdd.statistics;
+
+        State[] parents = null;
+        State[][] expanded = null; // successors of the states of the current chunk
+        if (this.mdd.expansionPool != null && this.width() >= PARALLEL_THRESHOLD) {
+            parents = this.states.toArray(new State[0]);
+            nextVar = selectVariable(parents[0]);
+            expanded = new State[Math.min(Math.max(width, PARALLEL_THRESHOLD), parents.length)][];
+            statistics.parallelLayers++;
+        }
 
         next.setExact(this.exact);
-        for (State state : this.states.values()) {
-            if (state.isExact()) {
-                state.exactParents().clear(); // we do not need them anymore -> garbage collection
+        int k = 0;
+        for (State state : parents == null ? this.states : Arrays.asList(parents)) {
+            if (!arcs) {
+                state.clearParents(); // we do not need them anymore -> garbage collection
             }
 
             if (nextVar == null) {
-                nextVar = this.mdd.variableSelector.select(state.freeVariables(), this);
+                nextVar = selectVariable(state);
             }
 
-            State[] successors = this.problem.successors(state, nextVar);
+            statistics.successorCalls++;
+            State[] successors;
+            if (expanded == null) {
+                successors = this.problem.successors(state, nextVar);
+            } else {
+                int i = k % expanded.length;
+                if (i == 0) {
+                    expand(parents, k, Math.min(k + expanded.length, parents.length), expanded, nextVar);
+                }
+                successors = expanded[i];
+                expanded[i] = null;
+                k++;
+            }
             for (State s : successors) {
-                if (state.isExact()) {
+                if (arcs) {
+                    s.addArc(state, s.value() - state.value());
+                } else if (state.isExact()) {
                     s.addParent(state);
-                } else {
+                }
+                if (!state.isExact()) {
                     s.setExact(false);
                 }
                 next.addState(s);
             }
 
-            if (next.width() > width) {
-                if (relaxed) {
-                    State[] toMerge = this.mdd.mergeSelector.select(next, next.width() - width + 1);
-                    next.removeStates(toMerge, this.mdd.frontier);
+            if (next.width() > limit) {
+                next.reduce(width, relaxed);
+            }
+        }
+
+        if (next.width() > width) {
+            next.reduce(width, relaxed);
+        }
+
+        statistics.layers++;
+        statistics.widthSum += next.width();
+        statistics.maxWidth = Math.max(statistics.maxWidth, next.width());
+
+        return next;
+    }
+
+    private Variable selectVariable(State state) {
+        long start = System.nanoTime();
+        Variable var = this.mdd.variableSelector.select(state.freeVariables(), this);
+        this.mdd.statistics.selectionTime += System.nanoTime() - start;
+        return var;
+    }
 
-                    State mergedState = this.problem.merge(toMerge);
-                    mergedState.setExact(false);
+    /**
+     * Computes in parallel the successors of the states {@code from} to {@code to - 1}.
+     * The successors of the state {@code from + i} are written in {@code successors[i]}.
+     */
+    private void expand(State[] parents, int from, int to, State[][] successors, Variable var) {
+        int grain = Math.max(1, (to - from) / (4 * this.mdd.expansionPool.getParallelism()));
+        this.mdd.expansionPool.invoke(new Expansion(this.problem, var, parents, successors, from, from, to, grain));
+    }
 
-                    next.addState(mergedState);
-                } else {
-                    State[] toRemove = this.mdd.deleteSelector.select(next, next.width() - width);
-                    next.removeStates(toRemove);
+    /**
+     * Computes the successors of a range of states, splitting it in halves until it has at most {@code grain} states.
+     * Each task writes the successors of its states in its own cells of the shared result array,
+     * the successors of the state {@code base + i} being written in cell {@code i}.
+     */
+    @SuppressWarnings("serial") // the tasks are never serialized
+    private static final class Expansion extends RecursiveAction {
+
+        private final Problem problem;
+        private final Variable var;
+        private final State[] parents;
+        private final State[][] successors;
+        private final int base, from, to, grain;
+
+        Expansion(Problem problem, Variable var, State[] parents, State[][] successors, int base, int from, int to, int grain) {
+            this.problem = problem;
+            this.var = var;
+            this.parents = parents;
+            this.successors = successors;
+            this.base = base;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        protected void compute() {
+            if (this.to - this.from <= this.grain) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.successors[i - this.base] = this.problem.successors(this.parents[i], this.var);
                 }
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new Expansion(this.problem, this.var, this.parents, this.successors, this.base, this.from, middle, this.grain),
+                        new Expansion(this.problem, this.var, this.parents, this.successors, this.base, middle, this.to, this.grain));
             }
         }
+    }
 
-        return next;
+    /**
+     * Reduces the layer to {@code width} states by merging states if the MDD is relaxed
+     * or by deleting states if it is restricted.
+     *
+     * @param width   the maximum width of the layer
+     * @param relaxed {@code true} to merge states, {@code false} to delete states
+     */
+    private void reduce(int width, boolean relaxed) {
+        Statistics statistics = this.mdd.statistics;
+        long start = System.nanoTime();
+
+        if (relaxed) {
+            State[] toMerge = this.mdd.mergeSelector.select(this, this.width() - width + 1);
+            statistics.selectionTime += System.nanoTime() - start;
+            this.removeStates(toMerge, this.mdd.frontier);
+
+            State mergedState = this.problem.merge(toMerge);
+            for (State state : toMerge) {
+                state.invalidate(); // merge may have modified their representations in place
+                if (this.mdd.localBounds) { // the merged state gives at least this value to the paths through the state
+                    mergedState.addParents(state, mergedState.value() - state.value());
+                }
+            }
+            mergedState.setExact(false);
+            statistics.merges++;
+            statistics.mergedStates += toMerge.length;
+
+            this.addState(mergedState);
+        } else {
+            State[] toRemove = this.mdd.deleteSelector.select(this, this.width() - width);
+            statistics.selectionTime += System.nanoTime() - start;
+            this.removeStates(toRemove);
+            statistics.deletions += toRemove.length;
+        }
     }
 
     /**
@@ -119,9 +256,8 @@ public class Layer {
     public void addState(State state) {
         this.exact &= state.isExact();
         state.setLayerNumber(this.number);
-        State existing = this.states.get(state.stateRepresentation);
-        if (existing == null) this.states.put(state.stateRepresentation, state);
-        else existing.update(state);
+        State existing = this.states.putIfAbsent(state);
+        if (existing != null) existing.update(state);
     }
 
     /**
@@ -131,7 +267,7 @@ public class Layer {
      */
     public void removeStates(State[] states) {
         for (State state : states) {
-            this.states.remove(state.stateRepresentation);
+            this.states.remove(state);
         }
         this.exact = false;
     }
@@ -142,9 +278,9 @@ public class Layer {
      * @param states   the states to be removed
      * @param frontier the frontier cutset in order to add exact parents
      */
-    public void removeStates(State[] states, Set<State> frontier) {
+    public void removeStates(State[] states, Collection<State> frontier) {
         for (State state : states) {
-            this.states.remove(state.stateRepresentation);
+            this.states.remove(state);
             frontier.addAll(state.exactParents());
         }
         this.exact = false;
@@ -156,7 +292,7 @@ public class Layer {
      * @return a {@code Set} with all the states
      */
     public Collection<State> states() {
-        return this.states.values();
+        return this.states;
     }
 
     /**
@@ -175,7 +311,7 @@ public class Layer {
      */
     public State best() {
         State best = null;
-        for (State state : this.states.values()) {
+        for (State state : this.states) {
             if (best == null || state.value() > best.value()) {
                 best = state;
             }
@@ -207,7 +343,7 @@ public class Layer {
      * @return {@code true} <==> the layer is the final one
      */
     public boolean isFinal() {
-        for (State state : this.states.values()) {
+        for (State state : this.states) {
             return state.isFinal();
         }
         return false;
@@ -220,7 +356,7 @@ public class Layer {
      * @return {@code true} <==> the variable {@code i} is bound
      */
     public boolean isBound(int i) {
-        for (State state : states.values()) {
+        for (State state : this.states) {
             return state.isBound(i);
         }
         return false;
@@ -233,7 +369,7 @@ public class Layer {
      * @return the variable {@code i}
      */
     public Variable getVariable(int i) {
-        for (State state : states.values()) {
+        for (State state : this.states) {
             return state.getVariable(i);
         }
         return null;
@@ -1,13 +1,19 @@
 package mdd;
 
 import core.Problem;
+import core.Statistics;
 import heuristics.DeleteSelector;
 import heuristics.MergeSelector;
 import heuristics.VariableSelector;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents the MDD graph.
@@ -19,7 +25,7 @@ import java.util.Set;
  */
 public class MDD {
 
-    public Set<State> frontier;
+    public Collection<State> frontier;
     public MergeSelector mergeSelector;
     public DeleteSelector deleteSelector;
     public VariableSelector variableSelector;
@@ -27,6 +33,11 @@ public class MDD {
     private Layer lastExactLayer;
     private boolean exact;
     private Problem problem;
+    private Cutset cutset;
+    boolean localBounds; // true if the relaxed layers keep all their arcs to bound the states of the frontier
+    boolean batchSelection;
+    ForkJoinPool expansionPool;
+    final Statistics statistics = new Statistics();
 
     /**
      * Returns the MDD representation of the problem.
@@ -54,7 +65,7 @@ public class MDD {
         this.root = new Layer(problem, this, initialState, initialState.layerNumber());
         this.exact = true;
         this.lastExactLayer = null;
-        this.frontier = new HashSet<>();
+        this.setCutset(Cutset.FRONTIER);
         this.mergeSelector = mergeSelector;
         this.deleteSelector = deleteSelector;
         this.variableSelector = variableSelector;
@@ -72,6 +83,38 @@ public class MDD {
         this.exact = true;
     }
 
+    /**
+     * Chooses when the layers are reduced to the maximum width.
+     *
+     * @param batchSelection {@code true} to select the states to merge or delete once per layer,
+     *                       {@code false} to select them after the expansion of each state
+     */
+    public void setBatchSelection(boolean batchSelection) {
+        this.batchSelection = batchSelection;
+    }
+
+    /**
+     * Chooses the exact cutset returned by {@code exactCutset}.
+     *
+     * @param cutset the kind of exact cutset, {@code Cutset.FRONTIER} by default
+     */
+    public void setCutset(Cutset cutset) {
+        this.cutset = cutset;
+        this.localBounds = cutset == Cutset.HYBRID;
+        // the states of the hybrid cutset are compared with their layer, the set would keep one state per representation
+        this.frontier = cutset == Cutset.HYBRID ? new ArrayList<>() : new HashSet<>();
+    }
+
+    /**
+     * Chooses the pool used to compute the successors of the states of wide layers in parallel.
+     * The problem should then compute successors of different states concurrently.
+     *
+     * @param expansionPool the pool expanding the layers, {@code null} to expand them sequentially
+     */
+    public void setExpansionPool(ForkJoinPool expansionPool) {
+        this.expansionPool = expansionPool;
+    }
+
     /**
      * Solves the given problem starting from the given node with layers of at most {@code width}
      * states by deleting some states and thus providing a feasible solution.
@@ -80,22 +123,27 @@ public class MDD {
      * @return the {@code State} object representing the best solution found
      */
     public State solveRestricted(int width, long startTime, int timeOut) {
-        this.lastExactLayer = null;
-        Layer lastLayer = root;
+        long start = System.nanoTime();
+        try {
+            this.lastExactLayer = null;
+            Layer lastLayer = root;
 
-        while (!lastLayer.isFinal()) {
-            if (System.currentTimeMillis() - startTime > timeOut * 1000) {
-                return null;
-            }
+            while (!lastLayer.isFinal()) {
+                if (System.currentTimeMillis() - startTime > timeOut * 1000) {
+                    return null;
+                }
 
-            lastLayer = lastLayer.nextLayer(width, false);
+                lastLayer = lastLayer.nextLayer(width, false);
 
-            if (!lastLayer.isExact()) {
-                this.exact = false;
+                if (!lastLayer.isExact()) {
+                    this.exact = false;
+                }
             }
-        }
 
-        return lastLayer.best();
+            return lastLayer.best();
+        } finally {
+            this.statistics.restrictedTime += System.nanoTime() - start;
+        }
     }
 
     /**
@@ -106,31 +154,90 @@ public class MDD {
      * @return the {@code State} object representing the best solution found
      */
     public State solveRelaxed(int width, long startTime, int timeOut) {
-        this.lastExactLayer = null;
-        this.frontier.clear();
-        Layer lastLayer = root;
+        long start = System.nanoTime();
+        try {
+            this.lastExactLayer = null;
+            this.frontier.clear();
+            Layer lastLayer = root;
+
+            while (!lastLayer.isFinal()) {
+                if (System.currentTimeMillis() - startTime > timeOut * 1000) {
+                    return null;
+                }
 
-        while (!lastLayer.isFinal()) {
-            if (System.currentTimeMillis() - startTime > timeOut * 1000) {
-                return null;
+                lastLayer = lastLayer.nextLayer(width, true);
+
+                if (lastLayer.isExact()) {
+                    this.lastExactLayer = lastLayer;
+                } else {
+                    this.exact = false;
+                }
             }
 
-            lastLayer = lastLayer.nextLayer(width, true);
+            for (State s : lastLayer.states()) {
+                if (s.isExact()) {
+                    this.frontier.add(s);
+                }
+            }
 
-            if (lastLayer.isExact()) {
-                this.lastExactLayer = lastLayer;
-            } else {
-                this.exact = false;
+            if (this.localBounds) {
+                this.computeLocalBounds(lastLayer);
             }
+
+            return lastLayer.best();
+        } finally {
+            this.statistics.relaxedTime += System.nanoTime() - start;
         }
+    }
 
-        for (State s : lastLayer.states()) {
-            if (s.isExact()) {
-                this.frontier.add(s);
+    /**
+     * Gives each state of the frontier a local bound as relaxed value : its value plus the longest path
+     * from the state to the last layer of the relaxed MDD, the length of an arc being the value it adds.
+     * No solution going through the state is better than this bound.
+     * The lengths are propagated from the last layer to the root along the arcs kept by the relaxed layers,
+     * the arcs of the states of the frontier are then dropped since these states become open nodes.
+     *
+     * @param lastLayer the last layer of the relaxed MDD
+     */
+    private void computeLocalBounds(Layer lastLayer) {
+        Map<State, Double> lengths = new IdentityHashMap<>(); // longest path from each state to the last layer
+        List<State> layer = new ArrayList<>(lastLayer.states());
+        for (State s : layer) {
+            lengths.put(s, 0.0);
+        }
+
+        while (!layer.isEmpty()) { // the parents of a state are all in the layer above it
+            List<State> above = new ArrayList<>();
+            for (State s : layer) {
+                double length = lengths.get(s);
+                for (int i = 0; i < s.nParents(); i++) {
+                    State parent = s.parent(i);
+                    Double parentLength = lengths.get(parent);
+                    if (parentLength == null) {
+                        above.add(parent);
+                    }
+                    if (parentLength == null || parentLength < s.gain(i) + length) {
+                        lengths.put(parent, s.gain(i) + length);
+                    }
+                }
             }
+            layer = above;
         }
 
-        return lastLayer.best();
+        for (State s : this.frontier) {
+            Double length = lengths.get(s); // null if no state of the last layer can be reached
+            s.setRelaxedValue(Math.min(s.relaxedValue(), length == null ? -Double.MAX_VALUE : s.value() + length));
+            s.clearParents();
+        }
+    }
+
+    /**
+     * Returns the statistics of all the compilations of this MDD.
+     *
+     * @return the counters of the layers, merges, deletions and successor calls and the compilation times
+     */
+    public Statistics statistics() {
+        return this.statistics;
     }
 
     /**
@@ -157,8 +264,24 @@ public class MDD {
      * @return a set of exact states being an exact cutset
      */
     public Collection<State> exactCutset() {
-        //return this.lastExactLayerCutset();
-        return this.frontierCutset();
+        return this.exactCutset(-Double.MAX_VALUE);
+    }
+
+    /**
+     * Returns an exact cutset of the current MDD tree, of the kind chosen with {@code setCutset}.
+     *
+     * @param lowerBound the value of the best solution found so far
+     * @return a set of exact states being an exact cutset
+     */
+    public Collection<State> exactCutset(double lowerBound) {
+        switch (this.cutset) {
+            case LAST_EXACT_LAYER:
+                return this.lastExactLayerCutset();
+            case HYBRID:
+                return this.hybridCutset(lowerBound);
+            default:
+                return this.frontierCutset();
+        }
     }
 
     /**
@@ -168,7 +291,7 @@ public class MDD {
      * @return the states of the last exact layer
      */
     private Collection<State> lastExactLayerCutset() {
-        return this.lastExactLayer.states();
+        return this.lastExactLayer == null ? this.root.states() : this.lastExactLayer.states();
     }
 
     /**
@@ -178,7 +301,37 @@ public class MDD {
      *
      * @return the states of the frontier cutset
      */
-    private Set<State> frontierCutset() {
+    private Collection<State> frontierCutset() {
         return this.frontier;
     }
+
+    /**
+     * Returns the frontier cutset without the states dominated by another state of the cutset
+     * or by the best solution found.
+     * A state is dominated by a state with the same {@code StateRepresentation} in the same layer and a better value,
+     * and by the best solution if its local bound, given by {@code computeLocalBounds}, does not improve it.
+     *
+     * @param lowerBound the value of the best solution found so far
+     * @return the states of the hybrid cutset
+     */
+    private Collection<State> hybridCutset(double lowerBound) {
+        Map<Integer, StateTable> layers = new HashMap<>();
+        for (State s : this.frontier) {
+            if (s.relaxedValue() <= lowerBound) {
+                continue;
+            }
+            StateTable layer = layers.computeIfAbsent(s.layerNumber(), k -> new StateTable(16));
+            State other = layer.putIfAbsent(s);
+            if (other != null && other.value() < s.value()) {
+                layer.remove(other);
+                layer.putIfAbsent(s);
+            }
+        }
+
+        Collection<State> cutset = new ArrayList<>();
+        for (StateTable layer : layers.values()) {
+            cutset.addAll(layer);
+        }
+        return cutset;
+    }
 }
@@ -2,9 +2,12 @@ package mdd;
 
 import core.Variable;
 
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents a particular state of the MDD.
@@ -14,14 +17,17 @@ import java.util.Set;
 public class State<R extends StateRepresentation> implements Comparable<State> {
 
     public final R stateRepresentation;
-    public final Variable[] variables;
-    public int[] indexes;
+    private Ordering ordering;
+    private Decision decisions;
     private double value;
     private double relaxedValue;
     private boolean exact;
     private int layerNumber;
-    private Set<State> parents;
-    private final int nVariables;
+    private State[] parents; // parents in parents[0..nParents-1], null if there is none
+    private double[] gains; // value added by the arc from each parent, null if the arcs are not kept
+    private int nParents;
+    private int hash; // hash code of the representation, 0 if it is not computed yet
+    private double rank; // rank of the state, NaN if it is not computed yet
 
     /**
      * @param stateRepresentation the state representation in the dynamic programming approach
@@ -39,34 +45,31 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      * @param exact               a boolean telling if the state is exact or not
      */
     public State(R stateRepresentation, Variable[] variables, double value, boolean exact) {
-        this(stateRepresentation, variables, new int[variables.length], value, exact);
-        for (int i = 0; i < nVariables; i++) {
-            this.indexes[i] = i;
-        }
+        this(stateRepresentation, new Ordering(variables), null, value, exact);
     }
 
     /**
+     * Returns a state with the same assignment as the given state, typically used to build merged states.
+     *
      * @param stateRepresentation the state representation in the dynamic programming approach
-     * @param variables           the variables of this state
-     * @param indexes             the index of each variable indexed by their id
+     * @param assignment          a state whose assignment is shared with this state
      * @param value               the value of the objective function at this point
      * @param exact               a boolean telling if the state is exact or not
      */
-    public State(R stateRepresentation, Variable[] variables, int[] indexes, double value, boolean exact) {
+    public State(R stateRepresentation, State assignment, double value, boolean exact) {
+        this(stateRepresentation, assignment.ordering, assignment.decisions, value, exact);
+        this.layerNumber = assignment.layerNumber;
+    }
+
+    private State(R stateRepresentation, Ordering ordering, Decision decisions, double value, boolean exact) {
         this.stateRepresentation = stateRepresentation;
+        this.ordering = ordering;
+        this.decisions = decisions;
         this.value = value;
         this.exact = exact;
         this.layerNumber = 0;
-        this.nVariables = variables.length;
         this.relaxedValue = Double.MAX_VALUE;
-        this.parents = new HashSet<>();
-
-        this.variables = new Variable[this.nVariables];
-        this.indexes = new int[this.nVariables];
-        for (int i = 0; i < nVariables; i++) {
-            this.variables[i] = variables[i];
-            this.indexes[i] = indexes[i];
-        }
+        this.rank = Double.NaN;
     }
 
     /**
@@ -75,30 +78,23 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      * @return a different {@code State} object with the same properties
      */
     public State copy() {
-        return new State(this.stateRepresentation, this.variables, this.indexes, this.value, this.exact);
+        State copy = new State(this.stateRepresentation, this.ordering, this.decisions, this.value, this.exact);
+        copy.layerNumber = this.layerNumber;
+        copy.hash = this.hash;
+        copy.rank = this.rank;
+        return copy;
     }
 
     /**
      * Assigns a variable of the problem to the given value.
+     * The variable takes the position of the last bound variable, given by the layer number.
      *
      * @param id    the identifier of the variable to be assigned
      * @param value the value to be assigned
      */
     public void assign(int id, int value) {
-        this.variables[indexes[id]] = this.variables[indexes[id]].copy();
-        this.variables[indexes[id]].assign(value);
-
-        int i1 = indexes[id];
-        int i2 = this.layerNumber - 1;
-
-        Variable v1 = this.variables[i1];
-        Variable v2 = this.variables[i2];
-
-        this.variables[i1] = v2;
-        this.variables[i2] = v1;
-
-        this.indexes[v1.id] = i2;
-        this.indexes[v2.id] = i1;
+        this.ordering = this.ordering.bind(id, this.layerNumber - 1);
+        this.decisions = new Decision(id, value, this.decisions);
     }
 
     /**
@@ -108,12 +104,13 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      */
     public void update(State other) {
         if (this.value < other.value()) {
-            System.arraycopy(other.variables, 0, this.variables, 0, this.nVariables);
-            System.arraycopy(other.indexes, 0, this.indexes, 0, this.nVariables);
+            this.ordering = other.ordering;
+            this.decisions = other.decisions;
             this.value = other.value;
+            this.rank = Double.NaN;
         }
         this.exact &= other.exact;
-        this.parents.addAll(other.parents);
+        this.addParents(other, 0); // the arcs lead to the same representation
     }
 
     /**
@@ -126,7 +123,7 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      * @return a new state with the internal properties required to be the successor of this state
      */
     public State getSuccessor(StateRepresentation stateRepresentation, double value, int id, int val) {
-        State succ = new State(stateRepresentation, variables, indexes, value, exact);
+        State succ = new State(stateRepresentation, ordering, decisions, value, exact);
         succ.setLayerNumber(this.layerNumber + 1);
         succ.assign(id, val);
         return succ;
@@ -138,17 +135,61 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      * @return an array with the free variables of the state
      */
     public Variable[] freeVariables() {
-        return Arrays.copyOfRange(this.variables, this.layerNumber, this.nVariables);
+        return Arrays.copyOfRange(this.ordering.variables, this.layerNumber, this.nVariables());
     }
 
     /**
      * Help function to get the variable with id i.
      *
      * @param i the if of a variable
-     * @return the variable with id i
+     * @return the variable with id i, with its value if it is assigned in this state
      */
     public Variable getVariable(int i) {
-        return this.variables[this.indexes[i]];
+        Variable var = this.ordering.variables[this.ordering.indexes[i]];
+        for (Decision d = this.decisions; d != null; d = d.previous) {
+            if (d.id == i) {
+                var = var.copy();
+                var.assign(d.value);
+                break;
+            }
+        }
+        return var;
+    }
+
+    /**
+     * Rebuilds the variables of the state with their values.
+     * It takes a time linear in the number of variables and should only be used for the solutions.
+     *
+     * @return an array with the bound variables, in the order of assignment, followed by the free variables
+     */
+    public Variable[] variables() {
+        Variable[] variables = this.ordering.variables.clone();
+        for (Decision d = this.decisions; d != null; d = d.previous) {
+            int i = this.ordering.indexes[d.id];
+            if (variables[i] == this.ordering.variables[i]) { // the last decision on a variable prevails
+                variables[i] = variables[i].copy();
+                variables[i].assign(d.value);
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * Returns the values of the variables in this state.
+     *
+     * @return an array with the value of each variable indexed by their id, {@code -1} if it is not assigned
+     */
+    public int[] assignment() {
+        int[] values = new int[this.nVariables()];
+        for (Variable var : this.ordering.variables) {
+            values[var.id] = var.value();
+        }
+        for (Decision d = this.decisions; d != null; d = d.previous) {
+            if (values[d.id] == -1) {
+                values[d.id] = d.value;
+            }
+        }
+        return values;
     }
 
     /**
@@ -158,7 +199,7 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      * @return {@code true} <==> the variable {@code i} is bound
      */
     public boolean isBound(int i) {
-        return this.indexes[i] < this.layerNumber;
+        return this.ordering.indexes[i] < this.layerNumber;
     }
 
     /**
@@ -212,7 +253,7 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      * @return {@code true} <==> the state is a final one
      */
     public boolean isFinal() {
-        return this.layerNumber == this.nVariables;
+        return this.layerNumber == this.nVariables();
     }
 
     /**
@@ -221,7 +262,7 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      * @return the number of variables of the state
      */
     public int nVariables() {
-        return this.nVariables;
+        return this.ordering.variables.length;
     }
 
     /**
@@ -239,23 +280,143 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
     }
 
     /**
-     * Adds an exact parent to the state
+     * Adds an exact parent to the state.
+     * The parents are kept in an array allocated on the first call, a parent may appear several times.
      *
      * @param s an exact parent of this state
      */
     public void addParent(State s) {
-        this.parents.add(s);
+        if (this.parents == null) {
+            this.parents = new State[1];
+        } else if (this.nParents == this.parents.length) {
+            this.parents = Arrays.copyOf(this.parents, 2 * this.nParents);
+            if (this.gains != null) {
+                this.gains = Arrays.copyOf(this.gains, 2 * this.nParents);
+            }
+        }
+        this.parents[this.nParents++] = s;
+    }
+
+    /**
+     * Adds a parent, exact or not, to the state with the value added by the arc from this parent.
+     * The arcs are only kept by the MDDs computing local bounds.
+     *
+     * @param s    a parent of this state
+     * @param gain the value added to the value of the parent along the arc
+     */
+    void addArc(State s, double gain) {
+        if (this.gains == null) {
+            this.gains = new double[this.parents == null ? 1 : this.parents.length];
+        }
+        this.addParent(s);
+        this.gains[this.nParents - 1] = gain;
+    }
+
+    /**
+     * Adds the parents of another state to this state, the arcs from these parents being redirected to this state.
+     *
+     * @param other a state whose parents become parents of this state
+     * @param shift the value added to the arcs, the difference of value between this state and the other one
+     */
+    void addParents(State other, double shift) {
+        for (int i = 0; i < other.nParents; i++) {
+            if (other.gains == null) {
+                this.addParent(other.parents[i]);
+            } else {
+                this.addArc(other.parents[i], other.gains[i] + shift);
+            }
+        }
+    }
+
+    /**
+     * @return the list of all exact parents of this state, possibly with duplicates
+     */
+    public List<State> exactParents() {
+        if (this.parents == null) {
+            return Collections.emptyList();
+        }
+        for (int i = 0; i < this.nParents; i++) {
+            if (!this.parents[i].isExact()) { // the MDD keeps all its arcs
+                List<State> exactParents = new ArrayList<>();
+                for (int j = 0; j < this.nParents; j++) {
+                    if (this.parents[j].isExact()) {
+                        exactParents.add(this.parents[j]);
+                    }
+                }
+                return exactParents;
+            }
+        }
+        return Arrays.asList(this.parents).subList(0, this.nParents);
+    }
+
+    /**
+     * @return the number of parents of this state, exact or not
+     */
+    int nParents() {
+        return this.nParents;
+    }
+
+    /**
+     * @param i the index of a parent, smaller than {@code nParents()}
+     * @return the i-th parent of this state
+     */
+    State parent(int i) {
+        return this.parents[i];
+    }
+
+    /**
+     * @param i the index of a parent, smaller than {@code nParents()}
+     * @return the value added by the arc from the i-th parent, given to {@code addArc}
+     */
+    double gain(int i) {
+        return this.gains[i];
     }
 
     /**
-     * @return the set of all exact parents of this state
+     * Forgets the parents of the state.
      */
-    public Set<State> exactParents() {
-        return this.parents;
+    public void clearParents() {
+        this.parents = null;
+        this.gains = null;
+        this.nParents = 0;
     }
 
+    /**
+     * Forgets the hash code and the rank of the state.
+     * Must be called when the {@code StateRepresentation} of the state is modified in place.
+     */
+    public void invalidate() {
+        this.hash = 0;
+        this.rank = Double.NaN;
+    }
+
+    /**
+     * Returns the hash code of the {@code StateRepresentation}, computed once until {@code invalidate} is called.
+     *
+     * @return the hash code of the state representation
+     */
     public int hashCode() {
-        return this.stateRepresentation.hashCode();
+        int h = this.hash;
+        if (h == 0) {
+            h = this.stateRepresentation.hashCode();
+            this.hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Returns the rank given by the {@code StateRepresentation}, computed once until the value of the state
+     * changes or {@code invalidate} is called.
+     *
+     * @return the rank of the state
+     */
+    public double rank() {
+        double r = this.rank;
+        if (Double.isNaN(r)) {
+            r = this.stateRepresentation.rank(this);
+            this.rank = r;
+        }
+        return r;
     }
 
     public boolean equals(Object o) {
@@ -279,6 +440,157 @@ public class State<R extends StateRepresentation> implements Comparable<State> {
      * @return the same comparison as the corresponding state representations
      */
     public int compareTo(State o) {
-        return Double.compare(this.stateRepresentation.rank(this), o.stateRepresentation.rank(o));
+        return Double.compare(this.rank(), o.rank());
+    }
+
+    /**
+     * Returns the number of bytes written by {@code encode}.
+     *
+     * @param codec the codec of the state representations
+     * @return the size of the binary form of the state
+     */
+    public int encodedSize(StateCodec<? super R> codec) {
+        int nDecisions = 0;
+        for (Decision d = this.decisions; d != null; d = d.previous) {
+            nDecisions++;
+        }
+        return 2 * Double.BYTES + 1 + 2 * Integer.BYTES + 2 * Integer.BYTES * nDecisions
+                + codec.encodedSize(this.stateRepresentation);
+    }
+
+    /**
+     * Writes a compact binary form of the state : its values, its decisions and its representation.
+     * The parents are not written.
+     *
+     * @param buffer a buffer with at least {@code encodedSize(codec)} remaining bytes
+     * @param codec  the codec of the state representations
+     */
+    public void encode(ByteBuffer buffer, StateCodec<? super R> codec) {
+        int nDecisions = 0;
+        for (Decision d = this.decisions; d != null; d = d.previous) {
+            nDecisions++;
+        }
+
+        buffer.putDouble(this.value);
+        buffer.putDouble(this.relaxedValue);
+        buffer.put((byte) (this.exact ? 1 : 0));
+        buffer.putInt(this.layerNumber);
+        buffer.putInt(nDecisions);
+
+        int end = buffer.position() + 2 * Integer.BYTES * nDecisions;
+        int position = end;
+        for (Decision d = this.decisions; d != null; d = d.previous) { // the oldest decision is written first
+            position -= 2 * Integer.BYTES;
+            buffer.putInt(position, d.id);
+            buffer.putInt(position + Integer.BYTES, d.value);
+        }
+        buffer.position(end);
+
+        codec.encode(this.stateRepresentation, buffer);
+    }
+
+    /**
+     * Reads a state written by {@code encode}.
+     * The ordering of the variables is rebuilt by binding the variables of the decisions from the root,
+     * the i-th decision binding its variable at position i.
+     *
+     * @param buffer a buffer positioned at the beginning of an encoded state
+     * @param codec  the codec of the state representations
+     * @param root   the root of the problem, whose variables are used to rebuild the ordering
+     * @return a state equivalent to the encoded one
+     */
+    public static <R extends StateRepresentation> State<R> decode(ByteBuffer buffer, StateCodec<R> codec, State<?> root) {
+        double value = buffer.getDouble();
+        double relaxedValue = buffer.getDouble();
+        boolean exact = buffer.get() != 0;
+        int layerNumber = buffer.getInt();
+        int nDecisions = buffer.getInt();
+
+        Ordering ordering = root.ordering;
+        Decision decisions = null;
+        for (int k = 0; k < nDecisions; k++) {
+            int id = buffer.getInt();
+            int val = buffer.getInt();
+
+            ordering = ordering.bind(id, k); // shares the cached orderings, as the states built by getSuccessor
+            decisions = new Decision(id, val, decisions);
+        }
+
+        State<R> state = new State<>(codec.decode(buffer), ordering, decisions, value, exact);
+        state.layerNumber = layerNumber;
+        state.relaxedValue = relaxedValue;
+        return state;
+    }
+
+    /**
+     * Order in which the variables are bound, shared by all the states of a layer.
+     * The first variables are the bound ones, the others are free.
+     * An ordering only keeps a weak reference to the next one, so that the orderings of the layers
+     * no longer referenced by a state are collected.
+     */
+    private static final class Ordering {
+
+        final Variable[] variables;
+        final int[] indexes;
+        private final int boundId, boundPosition;
+        private volatile WeakReference<Ordering> next;
+
+        Ordering(Variable[] variables) {
+            this(variables.clone(), new int[variables.length], -1, -1);
+            for (int i = 0; i < variables.length; i++) {
+                this.indexes[variables[i].id] = i;
+            }
+        }
+
+        private Ordering(Variable[] variables, int[] indexes, int boundId, int boundPosition) {
+            this.variables = variables;
+            this.indexes = indexes;
+            this.boundId = boundId;
+            this.boundPosition = boundPosition;
+        }
+
+        /**
+         * Returns the ordering where the variable {@code id} is moved to the given position.
+         * The result is cached since all the states of a layer bind the same variable.
+         */
+        Ordering bind(int id, int position) {
+            WeakReference<Ordering> ref = this.next;
+            Ordering next = ref == null ? null : ref.get();
+            if (next != null && next.boundId == id && next.boundPosition == position) {
+                return next;
+            }
+
+            Variable[] variables = this.variables.clone();
+            int[] indexes = this.indexes.clone();
+
+            int i1 = indexes[id];
+            Variable v1 = variables[i1];
+            Variable v2 = variables[position];
+
+            variables[i1] = v2;
+            variables[position] = v1;
+
+            indexes[v1.id] = position;
+            indexes[v2.id] = i1;
+
+            next = new Ordering(variables, indexes, id, position);
+            this.next = new WeakReference<>(next);
+            return next;
+        }
+    }
+
+    /**
+     * Persistent list of the decisions leading to a state, the last decision being the head.
+     */
+    private static final class Decision {
+
+        final int id, value;
+        final Decision previous;
+
+        Decision(int id, int value, Decision previous) {
+            this.id = id;
+            this.value = value;
+            this.previous = previous;
+        }
     }
 }
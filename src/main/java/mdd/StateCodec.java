@@ -0,0 +1,36 @@
+package mdd;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary form of the state representations of a problem, used to store open nodes outside of the heap.
+ * A representation decoded from the bytes written by {@code encode} should be equal to the encoded one.
+ *
+ * @param <R> the type of the state representations
+ */
+public interface StateCodec<R extends StateRepresentation> {
+
+    /**
+     * Returns the number of bytes written by {@code encode} for the given representation.
+     *
+     * @param stateRepresentation a state representation
+     * @return the size of the binary form of the representation
+     */
+    int encodedSize(R stateRepresentation);
+
+    /**
+     * Writes the representation at the current position of the buffer.
+     *
+     * @param stateRepresentation a state representation
+     * @param buffer              a buffer with at least {@code encodedSize(stateRepresentation)} remaining bytes
+     */
+    void encode(R stateRepresentation, ByteBuffer buffer);
+
+    /**
+     * Reads a representation written by {@code encode} at the current position of the buffer.
+     *
+     * @param buffer a buffer positioned at the beginning of an encoded representation
+     * @return the decoded representation
+     */
+    R decode(ByteBuffer buffer);
+}
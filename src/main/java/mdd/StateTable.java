@@ -0,0 +1,192 @@
+package mdd;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Open-addressing hash table storing the states of a layer, indexed by their {@code StateRepresentation}.
+ * The hash code of each representation is computed once and cached next to the state,
+ * lookups and removals do not allocate and the table is cleared in place.
+ */
+public class StateTable extends AbstractCollection<State> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private State[] states;
+    private int[] hashes;
+    private int size;
+    private int mask;
+
+    /**
+     * Returns an empty table able to contain {@code expectedSize} states without being resized.
+     *
+     * @param expectedSize the expected number of states
+     */
+    public StateTable(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * (long) expectedSize && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        this.states = new State[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private int slot(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & this.mask;
+    }
+
+    /**
+     * Returns the state of the table with the same {@code StateRepresentation} as the given one.
+     *
+     * @param stateRepresentation a state representation
+     * @return the state with an equal representation or {@code null} if there is none
+     */
+    public State get(StateRepresentation stateRepresentation) {
+        int hash = stateRepresentation.hashCode();
+        for (int i = slot(hash); this.states[i] != null; i = (i + 1) & this.mask) {
+            if (this.hashes[i] == hash && this.states[i].stateRepresentation.equals(stateRepresentation)) {
+                return this.states[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the state if no state with the same {@code StateRepresentation} is in the table.
+     *
+     * @param state the state to be added
+     * @return the state already in the table with the same representation or {@code null} if the state was added
+     */
+    public State putIfAbsent(State state) {
+        int hash = state.hashCode();
+        int i = slot(hash);
+        for (; this.states[i] != null; i = (i + 1) & this.mask) {
+            if (this.hashes[i] == hash && this.states[i].stateRepresentation.equals(state.stateRepresentation)) {
+                return this.states[i];
+            }
+        }
+
+        this.states[i] = state;
+        this.hashes[i] = hash;
+        if (++this.size * 2 > this.states.length) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the state with the same {@code StateRepresentation} as the given one.
+     *
+     * @param state the state to be removed
+     * @return {@code true} <==> a state was removed
+     */
+    public boolean remove(State state) {
+        int hash = state.hashCode();
+        for (int i = slot(hash); this.states[i] != null; i = (i + 1) & this.mask) {
+            if (this.hashes[i] == hash && this.states[i].stateRepresentation.equals(state.stateRepresentation)) {
+                delete(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof State && remove((State) o);
+    }
+
+    /**
+     * Empties the slot {@code i} and shifts back the following entries of the probe sequence
+     * so that no tombstone is needed.
+     */
+    private void delete(int i) {
+        this.states[i] = null;
+        this.size--;
+
+        int j = i;
+        while (true) {
+            j = (j + 1) & this.mask;
+            if (this.states[j] == null) {
+                return;
+            }
+
+            int k = slot(this.hashes[j]);
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+                continue; // the entry is still reachable from its ideal slot
+            }
+
+            this.states[i] = this.states[j];
+            this.hashes[i] = this.hashes[j];
+            this.states[j] = null;
+            i = j;
+        }
+    }
+
+    private void resize() {
+        State[] oldStates = this.states;
+        int[] oldHashes = this.hashes;
+
+        this.states = new State[oldStates.length * 2];
+        this.hashes = new int[oldStates.length * 2];
+        this.mask = this.states.length - 1;
+
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] != null) {
+                int j = slot(oldHashes[i]);
+                while (this.states[j] != null) {
+                    j = (j + 1) & this.mask;
+                }
+                this.states[j] = oldStates[i];
+                this.hashes[j] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * Removes all the states while keeping the allocated slots.
+     */
+    @Override
+    public void clear() {
+        if (this.size > 0) {
+            Arrays.fill(this.states, null);
+            this.size = 0;
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Iterator<State> iterator() {
+        return new Iterator<State>() {
+            private int next = advance(0);
+
+            private int advance(int i) {
+                while (i < states.length && states[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+
+            public boolean hasNext() {
+                return this.next < states.length;
+            }
+
+            public State next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                State state = states[this.next];
+                this.next = advance(this.next + 1);
+                return state;
+            }
+        };
+    }
+}
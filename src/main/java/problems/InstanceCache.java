@@ -0,0 +1,210 @@
+package problems;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary copies of the instance files, stored next to them with the suffix {@code .bin}.
+ * A copy holds the optimum and the adjacency of the instance in compressed sparse row form,
+ * and the modification time and size of the text file it was built from: it is rebuilt as soon
+ * as the text file changes.
+ * The cache can be disabled with {@code -Dmddsolver.cache=false}.
+ */
+final class InstanceCache {
+
+    static final String SUFFIX = ".bin";
+
+    private static final int MAGIC = 0x4D444443; // MDDC
+    private static final int VERSION = 1;
+    private static final int HEADER = 44;
+
+    /**
+     * Reads the text file of an instance.
+     */
+    interface Parser {
+        Instance parse(String path) throws IOException;
+    }
+
+    /**
+     * Graph of an instance in compressed sparse row form: the arcs leaving row u are
+     * {@code targets[offsets[u]], ..., targets[offsets[u + 1] - 1]}.
+     * The meaning of the rows and of the arcs depends on the problem.
+     */
+    static final class Instance {
+
+        final double opt;
+        final int[] offsets;
+        final int[] targets;
+        final double[] weights; // null if the arcs are not weighted
+
+        Instance(double opt, int[] offsets, int[] targets, double[] weights) {
+            this.opt = opt;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        /**
+         * Builds the compressed form of a list of arcs, the arcs leaving a row keep their order.
+         *
+         * @param opt the optimum of the instance, or its default value if it is unknown
+         * @param rows the number of rows
+         * @param from the first end of each arc
+         * @param to the second end of each arc
+         * @param weights the weight of each arc, or null
+         * @param arcs the number of arcs to take in the arrays
+         * @return the instance with these arcs
+         */
+        static Instance of(double opt, int rows, int[] from, int[] to, double[] weights, int arcs) {
+            int[] offsets = new int[rows + 1];
+            for (int k = 0; k < arcs; k++) {
+                offsets[from[k] + 1]++;
+            }
+            for (int u = 0; u < rows; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+
+            int[] next = new int[rows];
+            System.arraycopy(offsets, 0, next, 0, rows);
+            int[] targets = new int[arcs];
+            double[] w = weights == null ? null : new double[arcs];
+            for (int k = 0; k < arcs; k++) {
+                int i = next[from[k]]++;
+                targets[i] = to[k];
+                if (w != null) w[i] = weights[k];
+            }
+            return new Instance(opt, offsets, targets, w);
+        }
+
+        /**
+         * @return the number of rows
+         */
+        int rows() {
+            return this.offsets.length - 1;
+        }
+    }
+
+    private static final Instance EMPTY = new Instance(-1, new int[1], new int[0], null);
+
+    private InstanceCache() {
+    }
+
+    /**
+     * Returns the instance stored in a file, from its binary copy if it is up to date.
+     * Otherwise, the text file is parsed and its binary copy is written.
+     *
+     * @param path the path to the text file of the instance
+     * @param parser the parser of the text file
+     * @return the instance
+     */
+    static Instance read(String path, Parser parser) {
+        try {
+            Path source = Paths.get(path);
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            long size = Files.size(source);
+            boolean enabled = Boolean.parseBoolean(System.getProperty("mddsolver.cache", "true"));
+            Path cache = Paths.get(path + SUFFIX);
+
+            if (enabled && Files.exists(cache)) {
+                Instance instance = load(cache, modified, size);
+                if (instance != null) {
+                    return instance;
+                }
+            }
+
+            Instance instance = parser.parse(path);
+            if (enabled) {
+                store(cache, instance, modified, size);
+            }
+            return instance;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return EMPTY;
+        }
+    }
+
+    /**
+     * @return the instance of the binary file, or null if it is not a copy of the given source
+     */
+    private static Instance load(Path cache, long modified, long size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(cache.toFile(), "r");
+             FileChannel channel = file.getChannel()) {
+            if (channel.size() < HEADER) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != modified || buffer.getLong() != size) {
+                return null;
+            }
+            double opt = buffer.getDouble();
+            int rows = buffer.getInt();
+            int arcs = buffer.getInt();
+            boolean weighted = buffer.getInt() != 0;
+            if (channel.size() != length(rows, arcs, weighted)) {
+                return null;
+            }
+
+            int[] offsets = new int[rows + 1];
+            int[] targets = new int[arcs];
+            double[] weights = weighted ? new double[arcs] : null;
+            buffer.asIntBuffer().get(offsets).get(targets);
+            if (weighted) {
+                buffer.position(buffer.position() + 4 * (rows + 1 + arcs));
+                buffer.asDoubleBuffer().get(weights);
+            }
+            return new Instance(opt, offsets, targets, weights);
+        }
+    }
+
+    /**
+     * Writes the binary copy of an instance, a copy that cannot be written is simply skipped.
+     */
+    private static void store(Path cache, Instance instance, long modified, long size) {
+        int rows = instance.rows();
+        int arcs = instance.targets.length;
+        boolean weighted = instance.weights != null;
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) length(rows, arcs, weighted)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(modified).putLong(size);
+        buffer.putDouble(instance.opt).putInt(rows).putInt(arcs).putInt(weighted ? 1 : 0);
+        buffer.asIntBuffer().put(instance.offsets).put(instance.targets);
+        if (weighted) {
+            buffer.position(HEADER + 4 * (rows + 1 + arcs));
+            buffer.asDoubleBuffer().put(instance.weights);
+        }
+        buffer.rewind();
+
+        Path tmp = null;
+        try {
+            // written aside then moved, so that concurrent runs never read a partial copy
+            tmp = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                if (tmp != null) Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static long length(int rows, int arcs, boolean weighted) {
+        return HEADER + 4L * (rows + 1 + arcs) + (weighted ? 8L * arcs : 0);
+    }
+}
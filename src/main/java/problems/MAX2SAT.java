@@ -1,5 +1,6 @@
 package problems;
 
+import core.PrintingListener;
 import core.Problem;
 import core.Solver;
 import core.Variable;
@@ -8,18 +9,23 @@ import heuristics.MinLPMergeSelector;
 import heuristics.VariableSelector;
 import mdd.Layer;
 import mdd.State;
+import mdd.StateCodec;
 import mdd.StateRepresentation;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 
-public class MAX2SAT implements Problem {
+public class MAX2SAT implements Problem, StateCodec<MAX2SAT.MAX2SATState> {
 
-    private static Map<Integer, double[]>[] g;
+    private final int nVariables;
 
-    private static int nVariables;
+    // clauses in compressed sparse row form, the neighbours of u are neighbours[offsets[u]], ..., neighbours[offsets[u + 1] - 1]
+    // and weights[4 * k + (tu << 1 | ti)] is the weight of the clause (u == tu || i == ti) with i = neighbours[k]
+    private final int[] offsets, neighbours;
+    private final double[] weights;
+    private final double[] unary; // unary[2 * u + t] is the weight of the clause (u == t)
     private State root;
-    private static boolean done = false;
 
     public double opt;
 
@@ -45,9 +51,34 @@ public class MAX2SAT implements Problem {
      *          where the first bit corresponds to the smallest variable id.
      */
     private MAX2SAT(Map<Integer, double[]>[] g) {
-        nVariables = g.length;
-        done = false;
-        MAX2SAT.g = g;
+        this.nVariables = g.length;
+        this.offsets = new int[nVariables + 1];
+        this.unary = new double[2 * nVariables];
+        for (int u = 0; u < nVariables; u++) {
+            this.offsets[u + 1] = this.offsets[u] + g[u].size() - (g[u].containsKey(u) ? 1 : 0);
+        }
+
+        this.neighbours = new int[this.offsets[nVariables]];
+        this.weights = new double[4 * this.offsets[nVariables]];
+        for (int u = 0; u < nVariables; u++) {
+            int k = this.offsets[u];
+            for (int i : new TreeSet<>(g[u].keySet())) {
+                double[] w = g[u].get(i);
+                if (i == u) {
+                    this.unary[2 * u] = w[0];
+                    this.unary[2 * u + 1] = w[3];
+                    continue;
+                }
+
+                // in g, the first bit corresponds to the smallest variable id
+                this.neighbours[k] = i;
+                this.weights[4 * k] = w[0];
+                this.weights[4 * k + 1] = u < i ? w[1] : w[2];
+                this.weights[4 * k + 2] = u < i ? w[2] : w[1];
+                this.weights[4 * k + 3] = w[3];
+                k++;
+            }
+        }
 
         Variable[] variables = new Variable[nVariables];
         for (int i = 0; i < nVariables; i++) {
@@ -65,69 +96,55 @@ public class MAX2SAT implements Problem {
         return nVariables;
     }
 
-    public State[] successors(State s, Variable var) {
-        int u = var.id;
+    public int encodedSize(MAX2SATState stateRepresentation) {
+        return Integer.BYTES + Double.BYTES * stateRepresentation.benefits.length;
+    }
 
-        MAX2SATState max2satState = ((MAX2SATState) s.stateRepresentation);
+    public void encode(MAX2SATState stateRepresentation, ByteBuffer buffer) {
+        buffer.putInt(stateRepresentation.benefits.length);
+        for (double benefit : stateRepresentation.benefits) {
+            buffer.putDouble(benefit);
+        }
+    }
 
-        // assigning var to 0
-        double[] benefits0 = new double[nVariables];
-        double value0 = s.value() + Math.max(0, -max2satState.benefits[u]);
+    public MAX2SATState decode(ByteBuffer buffer) {
+        double[] benefits = new double[buffer.getInt()];
+        for (int i = 0; i < benefits.length; i++) {
+            benefits[i] = buffer.getDouble();
+        }
+        return new MAX2SATState(benefits);
+    }
 
-        for (int i = 0; i < nVariables; i++) {
-            if (!s.isBound(i)) {
-                if (u != i) benefits0[i] = max2satState.benefits[i];
-                if (g[u].containsKey(i)) {
-                    int numTT = 3, numTF = 2, numFT = 1, numFF = 0;
-                    if (u > i) {
-                        numTF = 1;
-                        numFT = 2;
-                    }
-
-                    if (u != i) {
-                        value0 += g[u].get(i)[numFF] + g[u].get(i)[numFT]
-                                + Math.min(
-                                Math.max(0, max2satState.benefits[i]) + g[u].get(i)[numTT],
-                                Math.max(0, -max2satState.benefits[i]) + g[u].get(i)[numTF]
-                        );
-                        benefits0[i] += g[u].get(i)[numTT] - g[u].get(i)[numTF];
-                    } else {
-                        value0 += g[u].get(i)[numFF];
-                    }
-                }
+    public State[] successors(State s, Variable var) {
+        int u = var.id;
+        double[] benefits = ((MAX2SATState) s.stateRepresentation).benefits;
+
+        // the benefits of the bound variables are 0, only the ones of the neighbours of u change
+        double[] benefits0 = benefits.clone(); // assigning var to 0
+        double[] benefits1 = benefits.clone(); // assigning var to 1
+        benefits0[u] = 0;
+        benefits1[u] = 0;
+        double value0 = s.value() + Math.max(0, -benefits[u]) + this.unary[2 * u];
+        double value1 = s.value() + Math.max(0, benefits[u]) + this.unary[2 * u + 1];
+
+        for (int k = this.offsets[u]; k < this.offsets[u + 1]; k++) {
+            int i = this.neighbours[k];
+            if (s.isBound(i)) {
+                continue;
             }
-        }
 
-        State state0 = s.getSuccessor(new MAX2SATState(benefits0), value0, u, 0);
+            double wFF = this.weights[4 * k], wFT = this.weights[4 * k + 1];
+            double wTF = this.weights[4 * k + 2], wTT = this.weights[4 * k + 3];
+            double positive = Math.max(0, benefits[i]), negative = Math.max(0, -benefits[i]);
 
-        // assigning var to 1
-        double[] benefits1 = new double[nVariables];
-        double value1 = s.value() + Math.max(0, max2satState.benefits[u]);
+            value0 += wFF + wFT + Math.min(positive + wTT, negative + wTF);
+            benefits0[i] += wTT - wTF;
 
-        for (int i = 0; i < nVariables; i++) {
-            if (!s.isBound(i)) {
-                if (u != i) benefits1[i] = max2satState.benefits[i];
-                if (g[u].containsKey(i)) {
-                    int numTT = 3, numTF = 2, numFT = 1, numFF = 0;
-                    if (u > i) {
-                        numTF = 1;
-                        numFT = 2;
-                    }
-
-                    if (u != i) {
-                        value1 += g[u].get(i)[numTF] + g[u].get(i)[numTT]
-                                + Math.min(
-                                Math.max(0, max2satState.benefits[i]) + g[u].get(i)[numFT],
-                                Math.max(0, -max2satState.benefits[i]) + g[u].get(i)[numFF]
-                        );
-                        benefits1[i] += g[u].get(i)[numFT] - g[u].get(i)[numFF];
-                    } else {
-                        value1 += g[u].get(i)[numTT];
-                    }
-                }
-            }
+            value1 += wTF + wTT + Math.min(positive + wFT, negative + wFF);
+            benefits1[i] += wFT - wFF;
         }
 
+        State state0 = s.getSuccessor(new MAX2SATState(benefits0), value0, u, 0);
         State state1 = s.getSuccessor(new MAX2SATState(benefits1), value1, u, 1);
 
         State[] ret = {state0, state1};
@@ -136,8 +153,7 @@ public class MAX2SAT implements Problem {
     }
 
     public State merge(State[] states) {
-        Variable[] variables = null;
-        int[] indexes = null;
+        State best = null;
         double maxValue = -Double.MAX_VALUE;
         double[] benefits = new double[nVariables];
         double[] newValues = new double[states.length];
@@ -176,12 +192,11 @@ public class MAX2SAT implements Problem {
         for (i = 0; i < newValues.length; i++) {
             if (newValues[i] > maxValue) {
                 maxValue = newValues[i];
-                variables = states[i].variables;
-                indexes = states[i].indexes;
+                best = states[i];
             }
         }
 
-        return new State(new MAX2SATState(benefits), variables, indexes, maxValue, false);
+        return new State(new MAX2SATState(benefits), best, maxValue, false);
     }
 
     private static Map<Integer, double[]>[] toGraph(int n, Clause[] clauses) {
@@ -246,34 +261,38 @@ public class MAX2SAT implements Problem {
         }
     }
 
+    /**
+     * Selects the variables by decreasing total weight of their clauses.
+     * The order is computed once for the problem, the selector can then be shared by several threads.
+     */
     public static class MAX2SATVariableSelector implements VariableSelector {
 
-        int[] index;
-
-        public Variable select(Variable[] vars, Layer layer) {
-            if (!done) {
-                index = new int[nVariables];
-                @SuppressWarnings("unchecked")
-                Map.Entry<Double,Integer> [] l = new Map.Entry[nVariables];
-
-                for (int i = 0; i < nVariables; i++) {
-                    double sum = 0;
-                    for (double[] weights : g[i].values()) {
-                        for (double w : weights) {
-                            sum += w;
-                        }
-                    }
-                    l[i] = new AbstractMap.SimpleEntry<>(sum, i);
-                }
-
-                Arrays.sort(l, (a, b) -> b.getKey().compareTo(a.getKey()));
-                for (int i = 0; i < nVariables; i++) {
-                    index[l[i].getValue()] = i;
+        private final int[] index;
+
+        /**
+         * @param problem the problem whose variables are selected
+         */
+        public MAX2SATVariableSelector(MAX2SAT problem) {
+            int n = problem.nVariables;
+            this.index = new int[n];
+            @SuppressWarnings("unchecked")
+            Map.Entry<Double, Integer>[] l = new Map.Entry[n];
+
+            for (int i = 0; i < n; i++) {
+                double sum = problem.unary[2 * i] + problem.unary[2 * i + 1];
+                for (int k = 4 * problem.offsets[i]; k < 4 * problem.offsets[i + 1]; k++) {
+                    sum += problem.weights[k];
                 }
+                l[i] = new AbstractMap.SimpleEntry<>(sum, i);
+            }
 
-                done = true;
+            Arrays.sort(l, (a, b) -> b.getKey().compareTo(a.getKey()));
+            for (int i = 0; i < n; i++) {
+                this.index[l[i].getValue()] = i;
             }
+        }
 
+        public Variable select(Variable[] vars, Layer layer) {
             Variable ret = null;
             for (Variable var : vars) {
                 if (ret == null || index[var.id] < index[ret.id]) {
@@ -292,62 +311,17 @@ public class MAX2SAT implements Problem {
      * @return a MAX2SAT object encoding the problem
      */
     public static MAX2SAT readDIMACS(String path) {
-        int n = 0, m, i = 0;
-        double opt = -1;
-        Clause[] clauses = null;
-
-        try {
-            Scanner scan = new Scanner(new File(path));
-
-            while (scan.hasNextLine()) {
-                String line = scan.nextLine();
-                String[] tokens = line.split("\\s+");
-
-                if (tokens.length > 0) {
-                    if (tokens[0].equals("c")) {
-                        if (tokens.length > 2 && tokens[1].equals("opt")) {
-                            opt = Double.valueOf(tokens[2]);
-                        }
-                        continue;
-                    }
-                    if (tokens[0].equals("p")) {
-                        assert (tokens.length == 4);
-                        assert (tokens[1].equals("wcnf"));
-                        n = Integer.valueOf(tokens[2]);
-                        m = Integer.valueOf(tokens[3]);
-                        clauses = new Clause[m];
-                    } else {
-                        int u, v, tu = 1, tv = 1;
-                        double w;
-                        if (tokens.length == 3) {
-                            w = Double.valueOf(tokens[0]);
-                            u = Integer.valueOf(tokens[1]);
-                            if (u < 0) {
-                                u = -u;
-                                tu = 0;
-                            }
-                            clauses[i++] = new Clause(u - 1, u - 1, tu, tu, w);
-                        } else if (tokens.length == 4) {
-                            w = Double.valueOf(tokens[0]);
-                            u = Integer.valueOf(tokens[1]);
-                            v = Integer.valueOf(tokens[2]);
-                            if (u < 0) {
-                                u = -u;
-                                tu = 0;
-                            }
-                            if (v < 0) {
-                                v = -v;
-                                tv = 0;
-                            }
-                            clauses[i++] = new Clause(u - 1, v - 1, tu, tv, w);
-                        }
-                    }
-                }
+        InstanceCache.Instance instance = InstanceCache.read(path, MAX2SAT::parseDIMACS);
+        int n = instance.rows() / 2, i = 0;
+        double opt = instance.opt;
+
+        // the rows and the targets are the literals 2 * x + t, with t the truth value of the variable x
+        Clause[] clauses = new Clause[instance.targets.length];
+        for (int a = 0; a < instance.rows(); a++) {
+            for (int k = instance.offsets[a]; k < instance.offsets[a + 1]; k++) {
+                int b = instance.targets[k];
+                clauses[i++] = new Clause(a >> 1, b >> 1, a & 1, b & 1, instance.weights[k]);
             }
-
-            scan.close();
-        } catch (Exception e) {
-            e.printStackTrace();
         }
 
         if (opt != -1) {
@@ -359,6 +333,51 @@ public class MAX2SAT implements Problem {
         return p;
     }
 
+    /**
+     * @param path path to an input file in DIMACS wcnf format
+     * @return the clauses, each clause leaving its first literal
+     */
+    private static InstanceCache.Instance parseDIMACS(String path) throws IOException {
+        int n = 0, m = 0;
+        double opt = -1;
+        int[] from = new int[0], to = new int[0];
+        double[] weights = new double[0];
+        Tokenizer tokens = new Tokenizer(path);
+
+        while (tokens.hasNext()) {
+            if (tokens.match("c")) {
+                if (tokens.match("opt")) {
+                    opt = tokens.nextDouble();
+                }
+                tokens.skipLine();
+            } else if (tokens.match("p")) {
+                tokens.skipToken(); // wcnf
+                n = tokens.nextInt();
+                int nClauses = tokens.nextInt();
+                from = new int[nClauses];
+                to = new int[nClauses];
+                weights = new double[nClauses];
+            } else { // weight, one or two literals and 0
+                if (m == from.length) {
+                    from = Arrays.copyOf(from, 2 * m + 1);
+                    to = Arrays.copyOf(to, 2 * m + 1);
+                    weights = Arrays.copyOf(weights, 2 * m + 1);
+                }
+                weights[m] = tokens.nextDouble();
+                int u = tokens.nextInt(), v = tokens.nextInt();
+                if (v == 0) {
+                    v = u;
+                } else {
+                    tokens.nextInt();
+                }
+                from[m] = u < 0 ? 2 * (-u - 1) : 2 * (u - 1) + 1;
+                to[m++] = v < 0 ? 2 * (-v - 1) : 2 * (v - 1) + 1;
+            }
+        }
+
+        return InstanceCache.Instance.of(opt, 2 * n, from, to, weights, m);
+    }
+
     public static void main(String[] args) {
         Clause[] clauses = {
                 new Clause(0, 2, 1, 1, 3), new Clause(0, 2, 0, 0, 5),
@@ -366,9 +385,10 @@ public class MAX2SAT implements Problem {
                 new Clause(1, 2, 0, 0, 1), new Clause(1, 2, 1, 1, 5)
         };
 
-        Problem p = new MAX2SAT(3, clauses);
+        MAX2SAT p = new MAX2SAT(3, clauses);
 
-        Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new MAX2SAT.MAX2SATVariableSelector());
+        Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new MAX2SAT.MAX2SATVariableSelector(p));
+        solver.setListener(new PrintingListener());
         solver.solve();
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package problems;
 
+import core.PrintingListener;
 import core.Problem;
 import core.Solver;
 import core.Variable;
@@ -7,21 +8,20 @@ import heuristics.MinLPDeleteSelector;
 import heuristics.MinLPMergeSelector;
 import heuristics.SimpleVariableSelector;
 import mdd.State;
+import mdd.StateCodec;
 import mdd.StateRepresentation;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Map;
-
-import static problems.Edge.toWeightedGraph;
 
 /**
  * Implementation of the Maximum Cut Problem.
  *
  * @author Vianney Coppé
  */
-public class MCP implements Problem {
+public class MCP implements Problem, StateCodec<MCP.MCPState> {
 
-    private Map<Integer, Double>[] g;
+    private final WeightedGraph g;
 
     private int nVariables;
     private State root;
@@ -33,18 +33,16 @@ public class MCP implements Problem {
      * @param edges a list of {@code Edge} objects with vertices indexes in [0,n-1]
      */
     public MCP(int n, Edge[] edges) {
-        this(toWeightedGraph(n, edges));
+        this(new WeightedGraph(n, edges));
     }
 
     /**
      * Returns the representation of the MCP problem.
      *
-     * @param g the adjacency lists in the format of a map, where
-     *          {@code g[i]} contains the key {@code j} if the vertices{@code i} and {@code j}
-     *          are connected with an edge and {@code g[i].get(j)} is the weight of this edge
+     * @param g the weighted graph
      */
-    private MCP(Map<Integer, Double>[] g) {
-        this.nVariables = g.length;
+    private MCP(WeightedGraph g) {
+        this.nVariables = g.size();
         this.g = g;
 
         Variable[] variables = new Variable[this.nVariables];
@@ -55,17 +53,17 @@ public class MCP implements Problem {
         variables[0].assign(0); // arbitrarily assign first vertex to one side
 
         double rootValue = 0;
-        for (Map<Integer, Double> adj : g) {
-            for (double e : adj.values()) {
-                rootValue += Math.min(0, e);
+        for (int u = 0; u < this.nVariables; u++) {
+            for (int k = g.begin(u); k < g.end(u); k++) {
+                rootValue += Math.min(0, g.weight(k));
             }
         }
         rootValue /= 2; // edges were counted twice
 
         double[] benefits0 = new double[this.nVariables];
-        for (int i = 1; i < this.nVariables; i++) {
-            if (g[0].containsKey(i)) {
-                benefits0[i] += g[0].get(i);
+        for (int k = g.begin(0); k < g.end(0); k++) {
+            if (g.neighbour(k) != 0) {
+                benefits0[g.neighbour(k)] += g.weight(k);
             }
         }
 
@@ -81,9 +79,27 @@ public class MCP implements Problem {
         return this.nVariables;
     }
 
+    public int encodedSize(MCPState stateRepresentation) {
+        return Integer.BYTES + Double.BYTES * stateRepresentation.benefits.length;
+    }
+
+    public void encode(MCPState stateRepresentation, ByteBuffer buffer) {
+        buffer.putInt(stateRepresentation.benefits.length);
+        for (double benefit : stateRepresentation.benefits) {
+            buffer.putDouble(benefit);
+        }
+    }
+
+    public MCPState decode(ByteBuffer buffer) {
+        double[] benefits = new double[buffer.getInt()];
+        for (int i = 0; i < benefits.length; i++) {
+            benefits[i] = buffer.getDouble();
+        }
+        return new MCPState(benefits);
+    }
+
     public State merge(State[] states) {
-        Variable[] variables = null;
-        int[] indexes = null;
+        State best = null;
         double maxValue = -Double.MAX_VALUE;
         double[] benefits = new double[nVariables];
         double[] newValues = new double[states.length];
@@ -122,54 +138,44 @@ public class MCP implements Problem {
         for (i = 0; i < newValues.length; i++) {
             if (newValues[i] > maxValue) {
                 maxValue = newValues[i];
-                variables = states[i].variables;
-                indexes = states[i].indexes;
+                best = states[i];
             }
         }
 
-        return new State(new MCPState(benefits), variables, indexes, maxValue, false);
+        return new State(new MCPState(benefits), best, maxValue, false);
     }
 
     public State[] successors(State s, Variable var) {
         int u = var.id;
-
-        Variable[] variables = s.variables;
-        MCPState mcpState = ((MCPState) s.stateRepresentation);
-
-        // assigning var to 0
-        double[] benefits0 = new double[this.nVariables];
-        double value0 = s.value() + Math.max(0, -mcpState.benefits[u]);
-
-        for (int i = 0; i < this.nVariables; i++) {
-            if (i != u && !s.isBound(i)) {
-                benefits0[i] = mcpState.benefits[i];
-                if (g[u].containsKey(i)) {
-                    if (mcpState.benefits[i] * g[u].get(i) <= 0) {
-                        value0 += Math.min(Math.abs(mcpState.benefits[i]), Math.abs(g[u].get(i)));
-                    }
-                    benefits0[i] += g[u].get(i);
-                }
+        double[] benefits = ((MCPState) s.stateRepresentation).benefits;
+
+        // the benefits of the bound variables are 0, only the ones of the neighbours of u change
+        double[] benefits0 = benefits.clone(); // assigning var to 0
+        double[] benefits1 = benefits.clone(); // assigning var to 1
+        benefits0[u] = 0;
+        benefits1[u] = 0;
+        double value0 = s.value() + Math.max(0, -benefits[u]);
+        double value1 = s.value() + Math.max(0, benefits[u]);
+
+        for (int k = this.g.begin(u); k < this.g.end(u); k++) {
+            int i = this.g.neighbour(k);
+            if (i == u || s.isBound(i)) {
+                continue;
             }
-        }
 
-        State state0 = s.getSuccessor(new MCPState(benefits0), value0, u, 0);
-
-        // assigning var to 1
-        double[] benefits1 = new double[this.nVariables];
-        double value1 = s.value() + Math.max(0, mcpState.benefits[u]);
+            double w = this.g.weight(k);
+            if (benefits[i] * w <= 0) {
+                value0 += Math.min(Math.abs(benefits[i]), Math.abs(w));
+            }
+            benefits0[i] += w;
 
-        for (int i = 0; i < this.nVariables; i++) {
-            if (i != u && !s.isBound(i)) {
-                benefits1[i] = mcpState.benefits[i];
-                if (g[u].containsKey(i)) {
-                    if (mcpState.benefits[i] * g[u].get(i) >= 0) {
-                        value1 += Math.min(Math.abs(mcpState.benefits[i]), Math.abs(g[u].get(i)));
-                    }
-                    benefits1[i] -= g[u].get(i);
-                }
+            if (benefits[i] * w >= 0) {
+                value1 += Math.min(Math.abs(benefits[i]), Math.abs(w));
             }
+            benefits1[i] -= w;
         }
 
+        State state0 = s.getSuccessor(new MCPState(benefits0), value0, u, 0);
         State state1 = s.getSuccessor(new MCPState(benefits1), value1, u, 1);
 
         State[] ret = {state0, state1};
@@ -224,6 +230,7 @@ public class MCP implements Problem {
         Problem p = new MCP(4, edges);
 
         Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new SimpleVariableSelector());
+        solver.setListener(new PrintingListener());
         solver.solve();
     }
 }
@@ -1,5 +1,6 @@
 package problems;
 
+import core.PrintingListener;
 import core.Problem;
 import core.Solver;
 import core.Variable;
@@ -8,12 +9,14 @@ import heuristics.MinLPMergeSelector;
 import heuristics.VariableSelector;
 import mdd.Layer;
 import mdd.State;
+import mdd.StateCodec;
 import mdd.StateRepresentation;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.LinkedList;
-import java.util.Scanner;
 
 import static problems.Edge.toGraph;
 
@@ -22,15 +25,16 @@ import static problems.Edge.toGraph;
  *
  * @author Vianney Coppé
  */
-public class MISP implements Problem {
+public class MISP implements Problem, StateCodec<MISP.MISPState> {
 
     private double[] weights;
-    private LinkedList<Integer>[] g;
+    private long[][] neighbours; // bit v of neighbours[u] set <==> u = v or u and v are adjacent
 
-    private int nVariables;
+    private int nVariables, nWords;
     private State root;
 
     public double opt;
+    public double loadTime; // seconds needed by readDIMACS to load the instance
 
     /**
      * Creates the representation of the MISP problem.
@@ -40,19 +44,20 @@ public class MISP implements Problem {
      * @param edges   an array of {@code Edge} objects with vertices in [0,n-1]
      */
     public MISP(int n, double[] weights, Edge[] edges) {
-        this(weights, toGraph(n, edges));
+        this(weights, masks(toGraph(n, edges)));
     }
 
     /**
      * Creates the representation of the MISP problem.
      *
-     * @param weights the weights of the vertices
-     * @param g       the adjacency lists
+     * @param weights    the weights of the vertices
+     * @param neighbours the neighbourhood masks, bit v of {@code neighbours[u]} is set if u = v or u and v are adjacent
      */
-    private MISP(double[] weights, LinkedList<Integer>[] g) {
+    private MISP(double[] weights, long[][] neighbours) {
         this.nVariables = weights.length;
+        this.nWords = (this.nVariables + 63) >>> 6;
         this.weights = weights;
-        this.g = g;
+        this.neighbours = neighbours;
 
         Variable[] variables = new Variable[this.nVariables];
         for (int i = 0; i < this.nVariables; i++) {
@@ -70,9 +75,44 @@ public class MISP implements Problem {
         return this.nVariables;
     }
 
+    /**
+     * Returns the neighbourhood masks of the given adjacency lists.
+     *
+     * @param g the adjacency lists
+     * @return the masks where bit v of the mask of u is set if u = v or v belongs to the adjacency list of u
+     */
+    private static long[][] masks(LinkedList<Integer>[] g) {
+        long[][] neighbours = new long[g.length][(g.length + 63) >>> 6];
+        for (int u = 0; u < g.length; u++) {
+            neighbours[u][u >>> 6] |= 1L << u;
+            for (int v : g[u]) {
+                neighbours[u][v >>> 6] |= 1L << v;
+            }
+        }
+        return neighbours;
+    }
+
+    public int encodedSize(MISPState stateRepresentation) {
+        return Integer.BYTES + Long.BYTES * stateRepresentation.words.length;
+    }
+
+    public void encode(MISPState stateRepresentation, ByteBuffer buffer) {
+        buffer.putInt(stateRepresentation.words.length);
+        for (long word : stateRepresentation.words) {
+            buffer.putLong(word);
+        }
+    }
+
+    public MISPState decode(ByteBuffer buffer) {
+        long[] words = new long[buffer.getInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        return new MISPState(words);
+    }
+
     public State merge(State[] states) {
-        Variable[] variables = null;
-        int[] indexes = null;
+        State best = null;
         double maxValue = -Double.MAX_VALUE;
         MISPState mispState = null;
 
@@ -80,17 +120,30 @@ public class MISP implements Problem {
             if (mispState == null) {
                 mispState = (MISPState) state.stateRepresentation;
             } else {
-                mispState.bs.or(((MISPState) state.stateRepresentation).bs);
+                long[] words = ((MISPState) state.stateRepresentation).words;
+                for (int i = 0; i < words.length; i++) {
+                    mispState.words[i] |= words[i];
+                }
             }
 
             if (state.value() > maxValue) {
                 maxValue = state.value();
-                variables = state.variables;
-                indexes = state.indexes;
+                best = state;
             }
         }
 
-        return new State(mispState, variables, indexes, maxValue, false);
+        return new State(mispState, best, maxValue, false);
+    }
+
+    /**
+     * Returns the free vertices of the state : a state whose free vertices are a subset of those of another state
+     * has fewer independent sets to complete its assignment.
+     *
+     * @param state an exact state
+     * @return the set of the free vertices
+     */
+    public BitSet dominanceKey(State state) {
+        return BitSet.valueOf(((MISPState) state.stateRepresentation).words);
     }
 
     public State[] successors(State s, Variable var) {
@@ -99,7 +152,7 @@ public class MISP implements Problem {
 
         // assign 0
         MISPState mispState0 = mispState.copy();
-        mispState0.bs.clear(u);
+        mispState0.words[u >>> 6] &= ~(1L << u);
         State dontTake = s.getSuccessor(mispState0, s.value(), u, 0);
 
         if (!mispState.isFree(u)) {
@@ -107,13 +160,13 @@ public class MISP implements Problem {
             return ret;
         }
 
-        // assign 1
-        MISPState mispState1 = mispState.copy();
-        mispState1.bs.clear(u);
-
-        for (int v : g[u]) {
-            mispState1.bs.clear(v);
+        // assign 1 : u and its neighbours are not free anymore
+        long[] words = mispState.words, mask = this.neighbours[u];
+        long[] words1 = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            words1[i] = words[i] & ~mask[i];
         }
+        MISPState mispState1 = new MISPState(words1);
 
         State take = s.getSuccessor(mispState1, s.value() + this.weights[u], u, 1);
 
@@ -122,36 +175,51 @@ public class MISP implements Problem {
         return ret;
     }
 
+    /**
+     * Set of the free vertices, stored in the words of a bitset of {@code nVariables} bits.
+     */
     public class MISPState implements StateRepresentation {
 
-        int size;
-        BitSet bs;
+        final long[] words;
 
+        /**
+         * @param size the number of free vertices, from 0 to size-1
+         */
         public MISPState(int size) {
-            this.size = size;
-            this.bs = new BitSet(size);
-            this.bs.flip(0, size);
+            this.words = new long[Math.max(nWords, (size + 63) >>> 6)];
+            for (int i = 0; i < size >>> 6; i++) {
+                this.words[i] = -1L;
+            }
+            if ((size & 63) != 0) {
+                this.words[size >>> 6] = (1L << size) - 1;
+            }
         }
 
+        /**
+         * @param bitSet the free vertices
+         */
         public MISPState(BitSet bitSet) {
-            this.size = bitSet.size();
-            this.bs = (BitSet) bitSet.clone();
+            this(Arrays.copyOf(bitSet.toLongArray(), Math.max(nWords, (bitSet.length() + 63) >>> 6)));
+        }
+
+        private MISPState(long[] words) {
+            this.words = words;
         }
 
         public int hashCode() {
-            return this.bs.hashCode();
+            return Arrays.hashCode(this.words);
         }
 
         public boolean equals(Object o) {
-            return o instanceof MISPState && this.bs.equals(((MISPState) o).bs);
+            return o instanceof MISPState && Arrays.equals(this.words, ((MISPState) o).words);
         }
 
         public boolean isFree(int u) {
-            return this.bs.get(u);
+            return (this.words[u >>> 6] & (1L << u)) != 0;
         }
 
         public MISPState copy() {
-            return new MISPState(this.bs);
+            return new MISPState(this.words.clone());
         }
 
         public double rank(State state) {
@@ -159,7 +227,7 @@ public class MISP implements Problem {
         }
 
         public String toString() {
-            return this.bs.toString();
+            return BitSet.valueOf(this.words).toString();
         }
     }
 
@@ -189,74 +257,88 @@ public class MISP implements Problem {
     /**
      * Instances can be found on <a href="https://turing.cs.hbg.psu.edu/txn131/clique.html#DIMACS_cliques">this website</a>.
      * Since they are maximum clique problems, we take the complement graph to use our MISP solver.
+     * The complement is built word by word from the adjacency masks of the graph.
+     * The graph is read from the binary copy of the file when it is up to date, see {@code InstanceCache}.
+     * The time needed to read the file and build the problem is stored in {@code loadTime}.
      *
      * @param path path to an input file in DIMACS edge format
      */
     public static MISP readDIMACS(String path) {
-        int n = 0, m, i = 0;
-        double opt = -1;
-        Edge[] edges = null;
-
-        try {
-            Scanner scan = new Scanner(new File(path));
-
-            while (scan.hasNextLine()) {
-                String line = scan.nextLine();
-                String[] tokens = line.split("\\s+");
-
-                if (tokens.length > 0) {
-                    if (tokens[0].equals("c")) {
-                        if (tokens.length > 2 && tokens[1].equals("opt")) {
-                            opt = Double.valueOf(tokens[2]);
-                        }
-                        continue;
-                    }
-                    if (tokens[0].equals("p")) {
-                        assert (tokens.length == 4);
-                        assert (tokens[1].equals("edge"));
-                        n = Integer.valueOf(tokens[2]);
-                        m = Integer.valueOf(tokens[3]);
-                        edges = new Edge[m];
-                    } else {
-                        if (tokens.length == 3) {
-                            int u = Integer.valueOf(tokens[1]) - 1;
-                            int v = Integer.valueOf(tokens[2]) - 1;
-                            edges[i++] = new Edge(u, v);
-                        }
-                    }
-                }
+        long start = System.nanoTime();
+        InstanceCache.Instance instance = InstanceCache.read(path, MISP::parseDIMACS);
+        int n = instance.rows();
+        double opt = instance.opt;
+
+        long[][] adjacency = new long[n][(n + 63) >>> 6];
+        for (int u = 0; u < n; u++) {
+            for (int k = instance.offsets[u]; k < instance.offsets[u + 1]; k++) {
+                int v = instance.targets[k];
+                adjacency[u][v >>> 6] |= 1L << v;
+                adjacency[v][u >>> 6] |= 1L << u;
             }
-
-            scan.close();
-        } catch (Exception e) {
-            e.printStackTrace();
         }
 
         double[] weights = new double[n];
-
-        LinkedList<Integer>[] g = Edge.toGraph(n, edges);
-        @SuppressWarnings("unchecked")
-        LinkedList<Integer>[] complement = new LinkedList[n];
-
-        for (i = 0; i < n; i++) {
-            weights[i] = 1;
-            complement[i] = new LinkedList<>();
-
-            for (int j = 0; j < n; j++)
-                if (i != j && !g[i].contains(j)) {
-                    complement[i].add(j);
-                }
+        Arrays.fill(weights, 1);
+
+        // the mask of u in the complement contains u and the vertices that are not adjacent to u
+        long last = (n & 63) == 0 ? -1L : (1L << n) - 1;
+        for (int u = 0; u < n; u++) {
+            long[] mask = adjacency[u];
+            for (int i = 0; i < mask.length; i++) {
+                mask[i] = ~mask[i];
+            }
+            mask[mask.length - 1] &= last;
+            mask[u >>> 6] |= 1L << u;
         }
 
         if (opt != -1) {
             System.out.println("Value to reach : " + opt);
         }
 
-        MISP p = new MISP(weights, complement);
+        MISP p = new MISP(weights, adjacency);
         p.opt = opt;
+        p.loadTime = (System.nanoTime() - start) / 1e9;
         return p;
     }
 
+    /**
+     * @param path path to an input file in DIMACS edge format
+     * @return the edges of the graph, each edge leaving its first vertex
+     */
+    private static InstanceCache.Instance parseDIMACS(String path) throws IOException {
+        int n = 0, m = 0;
+        double opt = -1;
+        int[] from = new int[0], to = new int[0];
+        Tokenizer tokens = new Tokenizer(path);
+
+        while (tokens.hasNext()) {
+            if (tokens.match("c")) {
+                if (tokens.match("opt")) {
+                    opt = tokens.nextDouble();
+                }
+                tokens.skipLine();
+            } else if (tokens.match("p")) {
+                tokens.skipToken(); // edge
+                n = tokens.nextInt();
+                int edges = tokens.nextInt();
+                from = new int[edges];
+                to = new int[edges];
+            } else if (tokens.match("e")) {
+                if (m == from.length) {
+                    from = Arrays.copyOf(from, 2 * m + 1);
+                    to = Arrays.copyOf(to, 2 * m + 1);
+                }
+                from[m] = tokens.nextInt() - 1;
+                to[m++] = tokens.nextInt() - 1;
+            } else {
+                tokens.skipLine();
+            }
+        }
+
+        return InstanceCache.Instance.of(opt, n, from, to, null, m);
+    }
+
     public static void main(String[] args) {
 
         double[] weights = {3, 4, 2, 2, 7};
@@ -267,6 +349,7 @@ public class MISP implements Problem {
         Problem p = new MISP(5, weights, edges);
 
         Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new MISP.MISPVariableSelector());
+        solver.setListener(new PrintingListener());
         solver.solve();
 
         /*Solver solver = new Solver(readDIMACS("data/misp/easy/johnson8-4-4.clq"), new MinLPMergeSelector(), new MinLPDeleteSelector(), new MISP.MISPVariableSelector());
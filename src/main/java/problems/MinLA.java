@@ -1,5 +1,6 @@
 package problems;
 
+import core.PrintingListener;
 import core.Problem;
 import core.Solver;
 import core.Variable;
@@ -7,25 +8,22 @@ import heuristics.MinLPDeleteSelector;
 import heuristics.MinLPMergeSelector;
 import heuristics.SimpleVariableSelector;
 import mdd.State;
+import mdd.StateCodec;
 import mdd.StateRepresentation;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.BitSet;
 import java.util.LinkedList;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Scanner;
-
-import static problems.Edge.toWeightedGraph;
 
 /**
  * Implementation of the Minimum Linear Arrangement Problem.
  *
  * @author Vianney Coppé
  */
-public class MinLA implements Problem {
+public class MinLA implements Problem, StateCodec<MinLA.MinLAState> {
 
-    private Map<Integer, Double>[] g;
+    private final WeightedGraph g;
 
     private int nVariables;
     private State root;
@@ -33,11 +31,11 @@ public class MinLA implements Problem {
     public double opt;
 
     public MinLA(int n, Edge[] edges) {
-        this(toWeightedGraph(n, edges));
+        this(new WeightedGraph(n, edges));
     }
 
-    private MinLA(Map<Integer, Double>[] g) {
-        this.nVariables = g.length;
+    private MinLA(WeightedGraph g) {
+        this.nVariables = g.size();
         this.g = g;
 
         Variable[] variables = new Variable[this.nVariables];
@@ -56,6 +54,35 @@ public class MinLA implements Problem {
         return this.nVariables;
     }
 
+    /**
+     * @return the graph whose vertices are arranged
+     */
+    public WeightedGraph graph() {
+        return this.g;
+    }
+
+    public int encodedSize(MinLAState stateRepresentation) {
+        return Double.BYTES + Integer.BYTES + Long.BYTES * ((stateRepresentation.bs.length() + 63) / 64);
+    }
+
+    public void encode(MinLAState stateRepresentation, ByteBuffer buffer) {
+        long[] words = stateRepresentation.bs.toLongArray();
+        buffer.putDouble(stateRepresentation.cut);
+        buffer.putInt(words.length);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+    }
+
+    public MinLAState decode(ByteBuffer buffer) {
+        double cut = buffer.getDouble();
+        long[] words = new long[buffer.getInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        return new MinLAState(BitSet.valueOf(words), cut);
+    }
+
     /**
      * Instances can be found on <a href=https://www.cs.upc.edu/~jpetit/MinLA/Experiments/</a>.
      *
@@ -63,50 +90,46 @@ public class MinLA implements Problem {
      * @return a MinLA object encoding the problem
      */
     public static MinLA readGra(String path) {
-        int n = 0, m, deg[];
-        Edge[] edges = null;
-        double opt = 0;
-
-        try {
-            Scanner scan = new Scanner(new File(path));
+        InstanceCache.Instance instance = InstanceCache.read(path, MinLA::parseGra);
+        int n = instance.rows();
+        Edge[] edges = new Edge[instance.targets.length];
 
-            String line = scan.nextLine();
-            String[] tokens = line.split("\\s+");
-
-            if (tokens[0].equals("opt")) {
-                opt = Integer.valueOf(tokens[1]);
-
-                n = scan.nextInt();
-                m = scan.nextInt();
-            } else {
-                n = Integer.valueOf(tokens[0]);
-                m = scan.nextInt();
+        for (int i = 0; i < n; i++) {
+            for (int k = instance.offsets[i]; k < instance.offsets[i + 1]; k++) {
+                edges[k] = new Edge(i, instance.targets[k], -1);
             }
+        }
+
+        MinLA p = new MinLA(n, edges);
+        p.opt = instance.opt;
+        return p;
+    }
 
-            deg = new int[n];
-            edges = new Edge[m * 2];
+    /**
+     * @param path path to an input file in gra format
+     * @return the adjacency lists of the graph
+     */
+    private static InstanceCache.Instance parseGra(String path) throws IOException {
+        double opt = 0;
+        Tokenizer tokens = new Tokenizer(path);
 
-            for (int i = 0; i < n; i++) {
-                deg[i] = scan.nextInt();
-            }
+        if (tokens.match("opt")) {
+            opt = tokens.nextInt();
+        }
+        int n = tokens.nextInt();
+        tokens.nextInt(); // number of edges
 
-            int cumul = 0, j;
-            for (int i = 0; i < n; i++) {
-                for (int k = cumul; k < cumul + deg[i]; k++) {
-                    j = scan.nextInt();
-                    edges[k] = new Edge(i, j, -1);
-                }
-                cumul += deg[i];
-            }
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + tokens.nextInt();
+        }
 
-            scan.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+        int[] targets = new int[offsets[n]];
+        for (int k = 0; k < targets.length; k++) {
+            targets[k] = tokens.nextInt();
         }
 
-        MinLA p = new MinLA(n, edges);
-        p.opt = opt;
-        return p;
+        return new InstanceCache.Instance(opt, offsets, targets, null);
     }
 
     public static void main(String[] args) {
@@ -115,50 +138,43 @@ public class MinLA implements Problem {
 
         Problem p = new MinLA(4, edges);
         Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new SimpleVariableSelector());
+        solver.setListener(new PrintingListener());
         solver.solve();
     }
 
     public State[] successors(State s, Variable var) {
-        int pos = var.id, j;
+        int pos = var.id;
         MinLAState minLAState = (MinLAState) s.stateRepresentation;
         LinkedList<State> succs = new LinkedList<>();
 
-        double value;
-        Double w;
+        if (minLAState.bs.isEmpty()) {
+            succs.add(s.copy());
+            return succs.toArray(new State[0]);
+        }
 
         for (int i = minLAState.bs.nextSetBit(0); i >= 0; i = minLAState.bs.nextSetBit(i + 1)) {
             MinLAState succMinLAState = minLAState.copy();
             succMinLAState.bs.clear(i);
 
-            value = s.value();
-            for (int k = 0; k < pos; k++) {
-                int u = s.getVariable(k).value();
-                for (Entry<Integer, Double> e : g[u].entrySet()) {
-                    if (succMinLAState.isFree(e.getKey())) {
-                        value += e.getValue();
-                    }
-                }
-            }
-
-            for (Entry<Integer, Double> e : g[i].entrySet()) {
-                if (succMinLAState.isFree(e.getKey())) {
-                    value += e.getValue();
+            // the edges between i and the placed vertices leave the cut, the ones between i and the free vertices enter it
+            for (int e = g.begin(i); e < g.end(i); e++) {
+                int j = g.neighbour(e);
+                if (succMinLAState.isFree(j)) {
+                    succMinLAState.cut += g.weight(e);
+                } else if (j != i) {
+                    succMinLAState.cut -= g.weight(e);
                 }
             }
+            double value = s.value() + succMinLAState.cut;
 
             succs.add(s.getSuccessor(succMinLAState, value, pos, i));
         }
 
-        if (succs.isEmpty()) {
-            succs.add(s.copy());
-        }
-
         return succs.toArray(new State[0]);
     }
 
     public State merge(State[] states) {
-        Variable[] variables = null;
-        int[] indexes = null;
+        State best = null;
         double maxValue = -Double.MAX_VALUE;
         MinLAState minLAState = null;
 
@@ -168,22 +184,23 @@ public class MinLA implements Problem {
             } else /*if(minLAState.bs.cardinality() < this.nVariables-state.layerNumber())*/ {
                 //minLAState.bs.or(((MinLAState) state.stateRepresentation).bs);
                 minLAState.bs.and(((MinLAState) state.stateRepresentation).bs);
+                minLAState.cut = Math.max(minLAState.cut, ((MinLAState) state.stateRepresentation).cut);
             }
 
             if (state.value() > maxValue) {
                 maxValue = state.value();
-                variables = state.variables;
-                indexes = state.indexes;
+                best = state;
             }
         }
 
-        return new State(minLAState, variables, indexes, maxValue, false);
+        return new State(minLAState, best, maxValue, false);
     }
 
     class MinLAState implements StateRepresentation {
 
         int size;
         BitSet bs;
+        double cut; // weight of the edges between the placed and the free vertices
 
         public MinLAState(int size) {
             this.size = size;
@@ -191,9 +208,10 @@ public class MinLA implements Problem {
             this.bs.flip(0, size);
         }
 
-        public MinLAState(BitSet bitSet) {
+        public MinLAState(BitSet bitSet, double cut) {
             this.size = bitSet.size();
             this.bs = (BitSet) bitSet.clone();
+            this.cut = cut;
         }
 
         public int hashCode() {
@@ -201,7 +219,8 @@ public class MinLA implements Problem {
         }
 
         public boolean equals(Object o) {
-            return o instanceof MinLAState && this.bs.equals(((MinLAState) o).bs);
+            return o instanceof MinLAState && this.bs.equals(((MinLAState) o).bs)
+                    && Double.compare(this.cut, ((MinLAState) o).cut) == 0;
         }
 
         public boolean isFree(int u) {
@@ -209,7 +228,7 @@ public class MinLA implements Problem {
         }
 
         public MinLAState copy() {
-            return new MinLAState(this.bs);
+            return new MinLAState(this.bs, this.cut);
         }
 
         public double rank(State state) {
@@ -0,0 +1,182 @@
+package problems;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the tokens of an instance file mapped in memory.
+ * Integers and decimal numbers without fraction or exponent are parsed directly from the bytes,
+ * without creating {@code String} objects.
+ */
+final class Tokenizer {
+
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    /**
+     * Maps the given file in memory.
+     *
+     * @param path the path to the file
+     * @throws IOException if the file cannot be read
+     */
+    Tokenizer(String path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+             FileChannel channel = file.getChannel()) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.limit = this.buffer.limit();
+        this.position = 0;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return isSpace(b) || b == '\n';
+    }
+
+    private void skipWhitespace() {
+        while (this.position < this.limit && isWhitespace(this.buffer.get(this.position))) {
+            this.position++;
+        }
+    }
+
+    private void skipSpaces() {
+        while (this.position < this.limit && isSpace(this.buffer.get(this.position))) {
+            this.position++;
+        }
+    }
+
+    /**
+     * Skips the whitespaces and the line breaks.
+     *
+     * @return {@code true} <==> there is another token in the file
+     */
+    boolean hasNext() {
+        skipWhitespace();
+        return this.position < this.limit;
+    }
+
+    /**
+     * Consumes the next token of the current line if it is equal to the given word.
+     *
+     * @param word a word in ASCII
+     * @return {@code true} <==> the next token of the line was {@code word}
+     */
+    boolean match(String word) {
+        skipSpaces();
+        int end = this.position + word.length();
+        if (end > this.limit) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (this.buffer.get(this.position + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        if (end < this.limit && !isWhitespace(this.buffer.get(end))) {
+            return false;
+        }
+        this.position = end;
+        return true;
+    }
+
+    /**
+     * Skips the next token, possibly on a following line.
+     */
+    void skipToken() {
+        skipWhitespace();
+        while (this.position < this.limit && !isWhitespace(this.buffer.get(this.position))) {
+            this.position++;
+        }
+    }
+
+    /**
+     * Skips the end of the current line, including the line break.
+     */
+    void skipLine() {
+        while (this.position < this.limit && this.buffer.get(this.position++) != '\n') ;
+    }
+
+    /**
+     * Reads the next token as an integer, possibly on a following line.
+     *
+     * @return the value of the token
+     * @throws NumberFormatException if the token is not an integer
+     */
+    int nextInt() {
+        skipWhitespace();
+        int start = this.position;
+        boolean negative = false;
+        if (this.position < this.limit && (this.buffer.get(this.position) == '-' || this.buffer.get(this.position) == '+')) {
+            negative = this.buffer.get(this.position++) == '-';
+        }
+
+        long value = 0;
+        int digits = 0;
+        while (this.position < this.limit) {
+            byte b = this.buffer.get(this.position);
+            if (b < '0' || b > '9') break;
+            value = 10 * value + (b - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Integer too large at byte " + start);
+            }
+            digits++;
+            this.position++;
+        }
+
+        if (digits == 0 || (this.position < this.limit && !isWhitespace(this.buffer.get(this.position)))) {
+            throw new NumberFormatException("Invalid integer at byte " + start);
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Integer too large at byte " + start);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the next token as a decimal number, possibly on a following line.
+     * The tokens with a fraction or an exponent are parsed by {@code Double.parseDouble}.
+     *
+     * @return the value of the token
+     * @throws NumberFormatException if the token is not a number
+     */
+    double nextDouble() {
+        skipWhitespace();
+        int start = this.position;
+        boolean negative = false;
+        if (this.position < this.limit && (this.buffer.get(this.position) == '-' || this.buffer.get(this.position) == '+')) {
+            negative = this.buffer.get(this.position++) == '-';
+        }
+
+        long value = 0;
+        int digits = 0;
+        while (this.position < this.limit && digits < 18) {
+            byte b = this.buffer.get(this.position);
+            if (b < '0' || b > '9') break;
+            value = 10 * value + (b - '0');
+            digits++;
+            this.position++;
+        }
+
+        if (digits > 0 && (this.position == this.limit || isWhitespace(this.buffer.get(this.position)))) {
+            return negative ? -value : value;
+        }
+
+        // fraction, exponent or very long number
+        while (this.position < this.limit && !isWhitespace(this.buffer.get(this.position))) {
+            this.position++;
+        }
+        byte[] bytes = new byte[this.position - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = this.buffer.get(start + i);
+        }
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,147 @@
+package problems;
+
+import java.util.Arrays;
+
+/**
+ * Undirected weighted graph in compressed sparse row form.
+ * The neighbours of u are {@code neighbour(k)} for k in [{@code begin(u)}, {@code end(u)}[, sorted by increasing id,
+ * and {@code weight(k)} is the weight of the corresponding edge.
+ * For graphs with at most {@code DENSE_LIMIT} vertices, the weights are also stored in a matrix
+ * so that {@code weight(u, v)} is answered in constant time.
+ */
+public final class WeightedGraph {
+
+    /**
+     * Maximum number of vertices for which the matrix of the weights is built.
+     */
+    public static final int DENSE_LIMIT = 512;
+
+    private final int n;
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final double[] weights;
+    private final double[] dense; // null if n > DENSE_LIMIT
+
+    /**
+     * Returns the graph with the given edges.
+     * If several edges connect the same vertices, the last one is kept.
+     *
+     * @param n     the number of vertices
+     * @param edges a list of {@code Edge} objects with vertices indexes in [0,n-1]
+     */
+    public WeightedGraph(int n, Edge[] edges) {
+        this.n = n;
+
+        int[] start = new int[n + 1];
+        for (Edge e : edges) {
+            start[e.u + 1]++;
+            if (e.u != e.v) start[e.v + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            start[u + 1] += start[u];
+        }
+
+        // the arcs of a row are added in the order of the edges, then sorted on their neighbour and their position
+        long[] arcs = new long[start[n]];
+        double[] arcWeights = new double[start[n]];
+        int[] next = Arrays.copyOf(start, n);
+        for (Edge e : edges) {
+            arcs[next[e.u]] = ((long) e.v << 32) | next[e.u];
+            arcWeights[next[e.u]++] = e.w;
+            if (e.u != e.v) {
+                arcs[next[e.v]] = ((long) e.u << 32) | next[e.v];
+                arcWeights[next[e.v]++] = e.w;
+            }
+        }
+
+        this.offsets = new int[n + 1];
+        int[] neighbours = new int[arcs.length];
+        double[] weights = new double[arcs.length];
+        int m = 0;
+        for (int u = 0; u < n; u++) {
+            Arrays.sort(arcs, start[u], start[u + 1]);
+            for (int i = start[u]; i < start[u + 1]; i++) {
+                int v = (int) (arcs[i] >>> 32);
+                if (i + 1 < start[u + 1] && (int) (arcs[i + 1] >>> 32) == v) {
+                    continue; // overwritten by a later edge
+                }
+                neighbours[m] = v;
+                weights[m++] = arcWeights[(int) arcs[i]];
+            }
+            this.offsets[u + 1] = m;
+        }
+        this.neighbours = Arrays.copyOf(neighbours, m);
+        this.weights = Arrays.copyOf(weights, m);
+
+        if (n <= DENSE_LIMIT) {
+            this.dense = new double[n * n];
+            for (int u = 0; u < n; u++) {
+                for (int k = this.offsets[u]; k < this.offsets[u + 1]; k++) {
+                    this.dense[u * n + this.neighbours[k]] = this.weights[k];
+                }
+            }
+        } else {
+            this.dense = null;
+        }
+    }
+
+    /**
+     * @return the number of vertices
+     */
+    public int size() {
+        return this.n;
+    }
+
+    /**
+     * @param u a vertex
+     * @return the index of the first neighbour of u
+     */
+    public int begin(int u) {
+        return this.offsets[u];
+    }
+
+    /**
+     * @param u a vertex
+     * @return the index following the last neighbour of u
+     */
+    public int end(int u) {
+        return this.offsets[u + 1];
+    }
+
+    /**
+     * @param u a vertex
+     * @return the number of neighbours of u
+     */
+    public int degree(int u) {
+        return this.offsets[u + 1] - this.offsets[u];
+    }
+
+    /**
+     * @param k the index of a neighbour, in [{@code begin(u)}, {@code end(u)}[ for a vertex u
+     * @return the id of this neighbour
+     */
+    public int neighbour(int k) {
+        return this.neighbours[k];
+    }
+
+    /**
+     * @param k the index of a neighbour, in [{@code begin(u)}, {@code end(u)}[ for a vertex u
+     * @return the weight of the edge between u and this neighbour
+     */
+    public double weight(int k) {
+        return this.weights[k];
+    }
+
+    /**
+     * @param u a vertex
+     * @param v a vertex
+     * @return the weight of the edge between u and v, or 0 if there is none
+     */
+    public double weight(int u, int v) {
+        if (this.dense != null) {
+            return this.dense[u * this.n + v];
+        }
+        int k = Arrays.binarySearch(this.neighbours, this.offsets[u], this.offsets[u + 1], v);
+        return k >= 0 ? this.weights[k] : 0;
+    }
+}
@@ -0,0 +1,53 @@
+package core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class DomainTest {
+
+    @Test
+    public void testRange() {
+        Domain d = Domain.range(3, 7);
+
+        assertEquals(d.size(), 5);
+        assertEquals(d.min(), 3);
+        assertEquals(d.max(), 7);
+        assertTrue(d.contains(3) && d.contains(7));
+        assertFalse(d.contains(2) || d.contains(8));
+        assertSame(Domain.range(0, 1), Domain.range(0, 1));
+        assertEquals(Domain.range(1, 0).size(), 0);
+    }
+
+    @Test
+    public void testBits() {
+        Domain d = Domain.of(new HashSet<>(Arrays.asList(-5, 0, 63, 64, 200)));
+
+        assertEquals(d.size(), 5);
+        assertTrue(d.contains(-5) && d.contains(63) && d.contains(64) && d.contains(200));
+        assertFalse(d.contains(1) || d.contains(199));
+
+        int count = 0, last = Integer.MIN_VALUE;
+        for (int v = d.min(); v <= d.max(); v = d.next(v)) {
+            assertTrue(d.contains(v));
+            assertTrue(v > last);
+            last = v;
+            count++;
+        }
+        assertEquals(count, 5);
+
+        assertEquals(d, new HashSet<>(Arrays.asList(-5, 0, 63, 64, 200)));
+    }
+
+    @Test
+    public void testContiguousValues() {
+        Domain d = Domain.of(new HashSet<>(Arrays.asList(2, 3, 4)));
+
+        assertEquals(d, Domain.range(2, 4));
+        assertEquals(d.next(2), 3);
+        assertEquals(d.next(4), 5);
+    }
+}
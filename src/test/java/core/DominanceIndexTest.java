@@ -0,0 +1,152 @@
+package core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DominanceIndexTest {
+
+    private static BitSet key(int... bits) {
+        BitSet key = new BitSet();
+        for (int bit : bits) {
+            key.set(bit);
+        }
+        return key;
+    }
+
+    @Test
+    public void testDominated() {
+        DominanceIndex index = new DominanceIndex(130);
+        index.add(key(0, 1, 2, 64, 129), 10);
+
+        assertTrue(index.dominated(key(0, 2, 129), 10, false));
+        assertTrue(index.dominated(key(0, 2, 129), 5, true));
+        assertTrue(index.dominated(key(0, 1, 2, 64, 129), 10, false));
+        assertFalse(index.dominated(key(0, 1, 2, 64, 129), 10, true)); // the key itself
+        assertTrue(index.dominated(key(0, 1, 2, 64, 129), 9, true));
+        assertFalse(index.dominated(key(0, 2, 129), 11, false));
+        assertFalse(index.dominated(key(0, 3), 1, false));
+        assertFalse(index.dominated(key(65), 1, false));
+        assertEquals(index.size(), 1);
+
+        index.add(key(0, 1, 2, 64, 129), 12); // the same key keeps the best value
+        assertEquals(index.size(), 1);
+        assertTrue(index.dominated(key(0, 2, 129), 12, false));
+        assertTrue(index.dominated(key(0, 1, 2, 64, 129), 11, true));
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(12);
+        int bits = 130;
+        DominanceIndex index = new DominanceIndex(bits);
+        List<BitSet> keys = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        int dominated = 0;
+
+        for (int i = 0; i < 2000; i++) { // enough keys to split the leaves on several levels
+            BitSet key = new BitSet(bits);
+            int density = 2 + random.nextInt(20);
+            for (int b = 0; b < bits; b++) {
+                if (random.nextInt(density) != 0) key.set(b);
+            }
+            double value = random.nextInt(20);
+
+            boolean expected = false, expectedStrict = false;
+            for (int j = 0; j < keys.size(); j++) {
+                BitSet missing = (BitSet) key.clone();
+                missing.andNot(keys.get(j));
+                if (missing.isEmpty() && values.get(j) >= value) {
+                    expected = true;
+                    expectedStrict |= values.get(j) > value || !key.equals(keys.get(j));
+                }
+            }
+            assertEquals(index.dominated(key, value, false), expected);
+            assertEquals(index.dominated(key, value, true), expectedStrict);
+            if (expected) dominated++;
+
+            index.add(key, value);
+            keys.add(key);
+            values.add(value);
+        }
+        assertTrue(dominated > 0);
+    }
+
+    @Test
+    public void testLayers() {
+        DominanceIndexes indexes = new DominanceIndexes(4, 10, 100);
+        indexes.add(1, key(0, 1, 2), 10);
+
+        assertTrue(indexes.dominated(1, key(0, 1), 5, false));
+        assertFalse(indexes.dominated(2, key(0, 1), 5, false)); // only the nodes of the same layer are compared
+        assertFalse(indexes.dominated(0, key(0, 1), 5, false));
+        assertEquals(indexes.size(), 1);
+
+        indexes.add(1, key(0, 1, 2), 12);
+        indexes.add(2, key(0, 1, 2), 12);
+        assertEquals(indexes.size(), 2);
+    }
+
+    @Test
+    public void testDropAbove() {
+        DominanceIndexes indexes = new DominanceIndexes(4, 10, 100);
+        for (int layer = 0; layer < 4; layer++) {
+            indexes.add(layer, key(layer), 10);
+            indexes.add(layer, key(layer, 9), 10);
+        }
+
+        indexes.dropAbove(2);
+        assertEquals(indexes.size(), 4);
+        assertFalse(indexes.dominated(1, key(1), 5, false));
+        assertTrue(indexes.dominated(2, key(2), 5, false));
+
+        indexes.add(1, key(1), 10); // the index of a dropped layer is not filled again
+        assertEquals(indexes.size(), 4);
+        assertFalse(indexes.dominated(1, key(1), 5, false));
+
+        indexes.dropAbove(1); // the dropped layers stay dropped
+        indexes.dropAbove(Integer.MAX_VALUE);
+        assertEquals(indexes.size(), 0);
+
+        Statistics statistics = new Statistics();
+        indexes.addTo(statistics);
+        assertEquals(statistics.dominanceEvictions, 0); // dropping an index is not an eviction
+    }
+
+    @Test
+    public void testCapacity() {
+        DominanceIndexes indexes = new DominanceIndexes(3, 10, 4);
+        indexes.add(0, key(0), 10);
+        indexes.add(1, key(1), 10);
+        indexes.add(1, key(2), 10);
+        indexes.add(1, key(3), 10);
+        assertEquals(indexes.size(), 4);
+
+        indexes.add(2, key(4), 10); // evicts the index of layer 1, the largest one
+        assertEquals(indexes.size(), 2);
+        assertFalse(indexes.dominated(1, key(1), 5, false));
+        assertTrue(indexes.dominated(0, key(0), 5, false));
+        assertTrue(indexes.dominated(2, key(4), 5, false));
+
+        indexes.add(1, key(1), 10); // an evicted index is filled again
+        assertTrue(indexes.dominated(1, key(1), 5, false));
+        indexes.add(2, key(5), 10);
+        indexes.add(2, key(6), 10); // evicts the index of layer 2
+        assertEquals(indexes.size(), 2);
+        assertFalse(indexes.dominated(2, key(4), 5, false));
+
+        Statistics statistics = new Statistics();
+        indexes.addTo(statistics);
+        assertEquals(statistics.dominanceEvictions, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLongKey() {
+        new DominanceIndex(64).add(key(64), 0);
+    }
+}
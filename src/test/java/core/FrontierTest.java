@@ -0,0 +1,154 @@
+package core;
+
+import mdd.State;
+import org.junit.Test;
+import problems.Edge;
+import problems.MISP;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrontierTest {
+
+    private static final int N = 10;
+
+    private static State state(MISP p, Variable[] vars, Random random) {
+        BitSet bs = new BitSet(N);
+        for (int i = 0; i < N; i++) {
+            if (random.nextBoolean()) bs.set(i);
+        }
+        State s = new State(p.new MISPState(bs), vars, random.nextInt(100));
+        s.setRelaxedValue(random.nextInt(100));
+        return s;
+    }
+
+    private static double rank(State s) {
+        return s.stateRepresentation.rank(s);
+    }
+
+    @Test
+    public void testPollAndBound() {
+        Random random = new Random(12);
+        MISP p = new MISP(N, new double[N], new Edge[0]);
+        Variable[] vars = new Variable[N];
+        for (int i = 0; i < N; i++) {
+            vars[i] = new Variable(i, 2);
+        }
+
+        Frontier frontier = new Frontier();
+        List<State> inside = new ArrayList<>();
+        assertEquals(Double.compare(frontier.bestBound(), -Double.MAX_VALUE), 0);
+
+        for (int k = 0; k < 5000; k++) {
+            int action = random.nextInt(10);
+            if (action < 6) {
+                State s = state(p, vars, random);
+                frontier.add(s);
+                inside.add(s);
+            } else if (action < 9) {
+                State s = frontier.poll();
+                if (inside.isEmpty()) {
+                    assertNull(s);
+                } else {
+                    for (State o : inside) {
+                        assertTrue(rank(s) <= rank(o));
+                    }
+                    assertTrue(inside.removeIf(o -> o == s));
+                }
+            } else {
+                double lowerBound = random.nextInt(50);
+                int removed = frontier.prune(lowerBound);
+                int before = inside.size();
+                inside.removeIf(s -> s.relaxedValue() <= lowerBound);
+                assertEquals(removed, before - inside.size());
+            }
+
+            double bound = -Double.MAX_VALUE;
+            for (State s : inside) {
+                bound = Math.max(bound, s.relaxedValue());
+            }
+            assertEquals(frontier.size(), inside.size());
+            assertEquals(Double.compare(frontier.bestBound(), bound), 0);
+        }
+    }
+
+    @Test
+    public void testSpill() {
+        Random random = new Random(12);
+        MISP p = new MISP(N, new double[N], new Edge[0]);
+
+        Frontier frontier = new Frontier(1024, p, p.root());
+        List<State> inside = new ArrayList<>();
+
+        for (int k = 0; k < 2000; k++) {
+            if (random.nextInt(10) < 7) {
+                State s = p.root().copy();
+                int depth = random.nextInt(N);
+                for (int i = 0; i < depth; i++) {
+                    Variable[] free = s.freeVariables();
+                    State[] successors = p.successors(s, free[random.nextInt(free.length)]);
+                    s = successors[random.nextInt(successors.length)];
+                }
+                s.setRelaxedValue(random.nextInt(100));
+                frontier.add(s);
+                inside.add(s);
+            } else if (random.nextInt(10) == 0) {
+                double lowerBound = random.nextInt(30);
+                frontier.prune(lowerBound);
+                inside.removeIf(s -> s.relaxedValue() <= lowerBound);
+            } else {
+                State s = frontier.poll();
+                if (inside.isEmpty()) {
+                    assertNull(s);
+                    continue;
+                }
+
+                State original = null;
+                for (State o : inside) {
+                    if (o.equals(s) && o.layerNumber() == s.layerNumber()
+                            && Double.compare(o.relaxedValue(), s.relaxedValue()) == 0
+                            && Arrays.equals(o.assignment(), s.assignment())) {
+                        original = o;
+                        break;
+                    }
+                }
+                assertNotNull(original);
+                State found = original;
+                inside.removeIf(o -> o == found);
+
+                assertEquals(Double.compare(s.value(), original.value()), 0);
+                for (int i = 0; i < N; i++) {
+                    assertEquals(s.isBound(i), original.isBound(i));
+                }
+                assertEquals(Arrays.asList(s.freeVariables()).size(), N - s.layerNumber());
+            }
+
+            assertTrue(frontier.size() >= inside.size()); // spilled nodes are pruned when they are read back
+            int minLayer = Integer.MAX_VALUE;
+            double bound = -Double.MAX_VALUE;
+            for (State s : inside) {
+                minLayer = Math.min(minLayer, s.layerNumber());
+                bound = Math.max(bound, s.relaxedValue());
+            }
+            assertTrue(frontier.minLayer() <= minLayer);
+            assertTrue(frontier.bestBound() >= bound);
+            if (frontier.spilledSize() == 0) {
+                assertEquals(frontier.minLayer(), minLayer);
+                assertEquals(Double.compare(frontier.bestBound(), bound), 0);
+            }
+        }
+
+        assertTrue(frontier.spills() > 0);
+        while (!inside.isEmpty()) {
+            assertNotNull(frontier.poll());
+            inside.remove(0);
+        }
+        assertNull(frontier.poll());
+        frontier.close();
+    }
+}
@@ -1,8 +1,27 @@
 package core;
 
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
+import heuristics.SimpleVariableSelector;
+import mdd.Cutset;
+import mdd.State;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import problems.Edge;
+import problems.MCP;
+import problems.MISP;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class SolverTest {
 
@@ -19,4 +38,273 @@ public class SolverTest {
 
     }
 
+    private static Edge[] randomEdges(Random random, int n, boolean weighted) {
+        LinkedList<Edge> edges = new LinkedList<>();
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < 1 + random.nextInt(5); j++) {
+                int v = random.nextInt(n);
+                if (v != i) {
+                    edges.add(weighted ? new Edge(i, v, random.nextInt(100) - 50) : new Edge(i, v));
+                }
+            }
+        }
+
+        return edges.toArray(new Edge[0]);
+    }
+
+    private static double run(Problem p, int threads, int width) {
+        return run(p, threads, width, solver -> {
+        }).lowerBound();
+    }
+
+    /**
+     * Solves the problem with the MinLP selectors after setting the options of the solver.
+     *
+     * @param options sets the options of the solver, such as {@code setBatchSelection}
+     * @return the solver, to read the value found and the statistics
+     */
+    private static Solver run(Problem p, int threads, int width, Consumer<Solver> options) {
+        Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new SimpleVariableSelector());
+        solver.setThreads(threads);
+        solver.setWidth(width);
+        options.accept(solver);
+        solver.solve();
+        return solver;
+    }
+
+    @Test
+    public void testParallelMCP() {
+        Random random = new Random(12);
+
+        for (int n = 10; n <= 30; n += 10) {
+            Edge[] edges = randomEdges(random, n, true);
+
+            double sequential = run(new MCP(n, edges), 1, 4);
+            double parallel = run(new MCP(n, edges), 4, 4);
+
+            assertEquals(Double.compare(sequential, parallel), 0);
+        }
+    }
+
+    @Test
+    public void testParallelMISP() {
+        Random random = new Random(12);
+
+        for (int n = 10; n <= 20; n += 5) {
+            double[] weights = new double[n];
+            for (int i = 0; i < n; i++) {
+                weights[i] = random.nextInt(50);
+            }
+            Edge[] edges = randomEdges(random, n, false);
+
+            double sequential = run(new MISP(n, weights, edges), 1, 4);
+            double parallel = run(new MISP(n, weights, edges), 4, 4);
+
+            assertEquals(Double.compare(sequential, parallel), 0);
+        }
+    }
+
+    @Test
+    public void testDominance() {
+        Random random = new Random(12);
+
+        for (int n = 20; n <= 40; n += 10) {
+            double[] weights = new double[n];
+            for (int i = 0; i < n; i++) {
+                weights[i] = random.nextInt(50);
+            }
+            Edge[] edges = randomEdges(random, n, false);
+
+            double unchecked = run(new MISP(n, weights, edges), 1, 4);
+
+            for (int threads : new int[]{1, 4}) {
+                Solver solver = run(new MISP(n, weights, edges), threads, 4, s -> s.setDominance(true));
+
+                assertEquals(Double.compare(unchecked, solver.lowerBound()), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testDominanceMemoryBudget() {
+        Random random = new Random(12);
+
+        for (int n = 20; n <= 40; n += 10) {
+            double[] weights = new double[n];
+            for (int i = 0; i < n; i++) {
+                weights[i] = random.nextInt(50);
+            }
+            Edge[] edges = randomEdges(random, n, false);
+
+            double unchecked = run(new MISP(n, weights, edges), 1, 4);
+
+            for (int capacity : new int[]{4, 1 << 20}) {
+                for (int threads : new int[]{1, 4}) {
+                    Solver solver = run(new MISP(n, weights, edges), threads, 4, s -> {
+                        s.setDominance(true);
+                        s.setDominanceCapacity(capacity);
+                        s.setMemoryBudget(256);
+                    });
+
+                    assertEquals(Double.compare(unchecked, solver.lowerBound()), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCache() {
+        Random random = new Random(12);
+
+        for (int n = 10; n <= 30; n += 10) {
+            Edge[] edges = randomEdges(random, n, true);
+
+            double uncached = run(new MCP(n, edges), 1, 4);
+
+            for (int cacheSize : new int[]{1, 1000}) {
+                for (int threads : new int[]{1, 4}) {
+                    Solver solver = run(new MCP(n, edges), threads, 4, s -> s.setCacheSize(cacheSize));
+
+                    assertEquals(Double.compare(uncached, solver.lowerBound()), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBatchSelection() {
+        Random random = new Random(12);
+
+        for (int n = 10; n <= 30; n += 10) {
+            Edge[] edges = randomEdges(random, n, true);
+
+            Solver perState = run(new MCP(n, edges), 1, 4, solver -> solver.setBatchSelection(false));
+            Solver batch = run(new MCP(n, edges), 1, 4, solver -> solver.setBatchSelection(true));
+
+            assertEquals(Double.compare(perState.lowerBound(), batch.lowerBound()), 0);
+        }
+    }
+
+    @Test
+    public void testCutset() {
+        Random random = new Random(12);
+
+        for (int n = 10; n <= 30; n += 10) {
+            Edge[] edges = randomEdges(random, n, true);
+
+            Solver lastExactLayer = run(new MCP(n, edges), 1, 4, solver -> solver.setCutset(Cutset.LAST_EXACT_LAYER));
+            Solver frontier = run(new MCP(n, edges), 1, 4, solver -> solver.setCutset(Cutset.FRONTIER));
+            Solver hybrid = run(new MCP(n, edges), 1, 4, solver -> solver.setCutset(Cutset.HYBRID));
+
+            assertEquals(Double.compare(frontier.lowerBound(), lastExactLayer.lowerBound()), 0);
+            assertEquals(Double.compare(frontier.lowerBound(), hybrid.lowerBound()), 0);
+            // the hybrid cutset is the frontier without the nodes whose local bound is dominated
+            assertTrue(hybrid.statistics().nodesCreated <= frontier.statistics().nodesCreated);
+        }
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        Random random = new Random(12);
+
+        for (int n = 10; n <= 30; n += 10) {
+            Edge[] edges = randomEdges(random, n, true);
+
+            double unbounded = run(new MCP(n, edges), 1, 4);
+
+            for (int threads : new int[]{1, 4}) {
+                Solver solver = run(new MCP(n, edges), threads, 4, s -> s.setMemoryBudget(1024));
+
+                assertEquals(Double.compare(unbounded, solver.lowerBound()), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelExpansion() {
+        Random random = new Random(12);
+
+        for (int n = 10; n <= 30; n += 10) {
+            Edge[] edges = randomEdges(random, n, true);
+
+            Solver sequential = run(new MCP(n, edges), 1, 100, s -> {
+            });
+            Solver parallel = run(new MCP(n, edges), 1, 100, s -> s.setExpansionThreads(4));
+
+            assertEquals(Double.compare(sequential.lowerBound(), parallel.lowerBound()), 0);
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        Random random = new Random(12);
+        int n = 20;
+        Edge[] edges = randomEdges(random, n, true);
+
+        for (int threads : new int[]{1, 4}) {
+            Solver solver = new Solver(new MCP(n, edges), new MinLPMergeSelector(), new MinLPDeleteSelector(), new SimpleVariableSelector());
+            solver.setThreads(threads);
+            solver.setWidth(4);
+            solver.solve();
+
+            Statistics statistics = solver.statistics();
+            assertTrue(statistics.nodesExplored > 0);
+            assertTrue(statistics.nodesCreated >= statistics.nodesExplored + statistics.nodesPruned);
+            assertTrue(statistics.queuePeak > 0);
+            assertTrue(statistics.layers >= n);
+            assertTrue(statistics.maxWidth <= 4);
+            assertTrue(statistics.meanWidth() <= statistics.maxWidth);
+            assertTrue(statistics.merges > 0 && statistics.mergedStates > statistics.merges);
+            assertTrue(statistics.deletions > 0);
+            assertTrue(statistics.successorCalls >= statistics.layers);
+            assertTrue(statistics.restrictedTime > 0 && statistics.relaxedTime > 0);
+            assertTrue(statistics.totalTime > 0);
+
+            assertEquals(statistics.toCSV().split(",").length, Statistics.csvHeader().split(",").length);
+            assertTrue(statistics.toJSON().startsWith("{\"nodesExplored\": " + statistics.nodesExplored + ","));
+        }
+    }
+
+    @Test
+    public void testListener() {
+        Random random = new Random(12);
+        int n = 20;
+        Edge[] edges = randomEdges(random, n, true);
+
+        List<Double> solutions = new ArrayList<>();
+        List<State> ends = new ArrayList<>();
+        int[] nodes = new int[1];
+
+        Solver solver = new Solver(new MCP(n, edges), new MinLPMergeSelector(), new MinLPDeleteSelector(), new SimpleVariableSelector());
+        solver.setWidth(4);
+        solver.setListener(new SolverListener() {
+            public void solutionFound(Solver solver, State solution) {
+                solutions.add(solution.value());
+            }
+
+            public void nodeProcessed(Solver solver, State node, State[] cutset) {
+                nodes[0]++;
+            }
+
+            public void searchEnded(Solver solver, State best, boolean completed) {
+                assertTrue(completed);
+                ends.add(best);
+            }
+        });
+        State best = solver.solve();
+
+        assertEquals(ends.size(), 1);
+        assertTrue(ends.get(0) == best);
+        for (int i = 1; i < solutions.size(); i++) {
+            assertTrue(solutions.get(i) > solutions.get(i - 1));
+        }
+        assertEquals(Double.compare(solutions.get(solutions.size() - 1), best.value()), 0);
+        assertTrue(nodes[0] >= solver.statistics().nodesExplored);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        solver.setListener(new PrintingListener(new PrintStream(out)));
+        solver.solve();
+        assertTrue(out.toString().contains("Optimal solution : " + best.value()));
+    }
 }
@@ -0,0 +1,131 @@
+package core;
+
+import mdd.State;
+import org.junit.Test;
+import problems.Edge;
+import problems.MISP;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class SubproblemCacheTest {
+
+    private static final int N = 10;
+
+    private static State state(MISP p, Variable[] vars, int layer, double value, int... free) {
+        BitSet bs = new BitSet(N);
+        for (int i : free) {
+            bs.set(i);
+        }
+        State s = new State(p.new MISPState(bs), vars, value);
+        s.setLayerNumber(layer);
+        return s;
+    }
+
+    @Test
+    public void testExpand() {
+        MISP p = new MISP(N, new double[N], new Edge[0]);
+        Variable[] vars = new Variable[N];
+        for (int i = 0; i < N; i++) {
+            vars[i] = new Variable(i, 2);
+        }
+        SubproblemCache cache = new SubproblemCache(10);
+
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 5, 2, 3)), Double.MAX_VALUE), 0);
+        cache.bound(state(p, vars, 1, 5, 2, 3), 12);
+
+        // same subproblem, not better
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 5, 2, 3)), Double.NEGATIVE_INFINITY), 0);
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 4, 2, 3)), Double.NEGATIVE_INFINITY), 0);
+        // same subproblem, better value : the bound is tightened with the completion bound 12 - 5
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 6, 2, 3)), 13), 0);
+        // other layer or other representation
+        assertEquals(Double.compare(cache.expand(state(p, vars, 2, 5, 2, 3)), Double.MAX_VALUE), 0);
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 5, 2, 4)), Double.MAX_VALUE), 0);
+
+        Statistics statistics = new Statistics();
+        cache.addTo(statistics);
+        assertEquals(statistics.cacheHits, 3);
+        assertEquals(statistics.cacheMisses, 3);
+        assertEquals(statistics.cacheEvictions, 0);
+        assertEquals(Double.compare(statistics.cacheHitRate(), 0.5), 0);
+    }
+
+    @Test
+    public void testBound() {
+        MISP p = new MISP(N, new double[N], new Edge[0]);
+        Variable[] vars = new Variable[N];
+        for (int i = 0; i < N; i++) {
+            vars[i] = new Variable(i, 2);
+        }
+        SubproblemCache cache = new SubproblemCache(10);
+
+        // the bound of a subproblem that is not in the cache is ignored
+        cache.bound(state(p, vars, 1, 5, 2, 3), 12);
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 5, 2, 3)), Double.MAX_VALUE), 0);
+
+        // the completion only gets tighter
+        cache.bound(state(p, vars, 1, 5, 2, 3), 12);
+        cache.bound(state(p, vars, 1, 6, 2, 3), 20);
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 8, 2, 3)), 15), 0);
+        cache.bound(state(p, vars, 1, 8, 2, 3), 9);
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 10, 2, 3)), 11), 0);
+
+        // a dominated node is detected whatever its completion
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 10, 2, 3)), Double.NEGATIVE_INFINITY), 0);
+    }
+
+    @Test
+    public void testEvictionOrder() {
+        MISP p = new MISP(N, new double[N], new Edge[0]);
+        Variable[] vars = new Variable[N];
+        for (int i = 0; i < N; i++) {
+            vars[i] = new Variable(i, 2);
+        }
+        SubproblemCache cache = new SubproblemCache(3);
+
+        cache.expand(state(p, vars, 1, 5, 1));
+        cache.expand(state(p, vars, 1, 5, 2));
+        cache.expand(state(p, vars, 1, 5, 3));
+        cache.bound(state(p, vars, 1, 5, 1), 10); // bounding a subproblem uses it
+        cache.expand(state(p, vars, 1, 5, 4)); // evicts 2, the least recently used
+
+        assertEquals(cache.size(), 3);
+        for (int i : new int[]{1, 3, 4}) { // uses 1, then 3, then 4
+            assertEquals(Double.compare(cache.expand(state(p, vars, 1, 5, i)), Double.NEGATIVE_INFINITY), 0);
+        }
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 5, 2)), Double.MAX_VALUE), 0); // evicts 1
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 6, 3)), Double.MAX_VALUE), 0); // 3 is kept, better value
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 6, 1)), Double.MAX_VALUE), 0); // evicts 4
+
+        Statistics statistics = new Statistics();
+        cache.addTo(statistics);
+        assertEquals(statistics.cacheHits, 4);
+        assertEquals(statistics.cacheMisses, 6);
+        assertEquals(statistics.cacheEvictions, 3);
+    }
+
+    @Test
+    public void testEviction() {
+        MISP p = new MISP(N, new double[N], new Edge[0]);
+        Variable[] vars = new Variable[N];
+        for (int i = 0; i < N; i++) {
+            vars[i] = new Variable(i, 2);
+        }
+        SubproblemCache cache = new SubproblemCache(2);
+
+        cache.expand(state(p, vars, 1, 5, 1));
+        cache.expand(state(p, vars, 1, 5, 2));
+        cache.expand(state(p, vars, 1, 5, 1)); // 1 is now the most recently used
+        cache.expand(state(p, vars, 1, 5, 3)); // evicts 2
+
+        assertEquals(cache.size(), 2);
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 5, 1)), Double.NEGATIVE_INFINITY), 0);
+        assertEquals(Double.compare(cache.expand(state(p, vars, 1, 5, 2)), Double.MAX_VALUE), 0);
+
+        Statistics statistics = new Statistics();
+        cache.addTo(statistics);
+        assertEquals(statistics.cacheEvictions, 2);
+    }
+}
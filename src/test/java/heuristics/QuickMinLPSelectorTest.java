@@ -0,0 +1,63 @@
+package heuristics;
+
+import core.Variable;
+import mdd.Layer;
+import mdd.MDD;
+import mdd.State;
+import org.junit.Test;
+import problems.Edge;
+import problems.MISP;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class QuickMinLPSelectorTest {
+
+    private static double[] values(State[] states) {
+        double[] values = new double[states.length];
+        for (int i = 0; i < states.length; i++) {
+            values[i] = states[i].value();
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    @Test
+    public void testSameSelectionAsSort() {
+        int n = 12;
+        Random random = new Random(12);
+        Variable[] vars = new Variable[n];
+        for (int i = 0; i < n; i++) {
+            vars[i] = new Variable(i, 2);
+        }
+        MISP p = new MISP(n, new double[n], new Edge[0]);
+        MDD mdd = new MDD(p, null, null, new SimpleVariableSelector());
+
+        for (int width : new int[]{1, 2, 10, 100, 1000}) {
+            Layer layer = new Layer(p, mdd, 0);
+            for (int i = 0; i < width; i++) {
+                BitSet bs = new BitSet(n);
+                for (int j = 0; j < n; j++) {
+                    if (((i >> j) & 1) == 1) bs.set(j);
+                }
+                layer.addState(new State(p.new MISPState(bs), vars, random.nextInt(20)));
+            }
+
+            for (int number : new int[]{1, width / 2 + 1, width - 1, width}) {
+                if (number == 0) continue;
+
+                State[] sorted = new MinLPMergeSelector().select(layer, number);
+                State[] merged = new QuickMinLPMergeSelector().select(layer, number);
+                State[] deleted = new QuickMinLPDeleteSelector().select(layer, number);
+
+                assertEquals(merged.length, number);
+                assertArrayEquals(values(sorted), values(merged), 0);
+                assertArrayEquals(values(sorted), values(deleted), 0);
+            }
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package mdd;
 
 import core.Variable;
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
 import heuristics.SimpleVariableSelector;
 import heuristics.VariableSelector;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import problems.Edge;
+import problems.MCP;
 import problems.MISP;
+import problems.MinLA;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -93,4 +103,140 @@ public class LayerTest {
             fail("Should have one state");
         }
     }
+
+    @Test
+    public void testBatchSelection() {
+        Random random = new Random(12);
+        int n = 8;
+        LinkedList<Edge> edges = new LinkedList<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextBoolean()) edges.add(new Edge(i, j, -1));
+            }
+        }
+        MinLA minla = new MinLA(n, edges.toArray(new Edge[0]));
+        int width = 10;
+
+        for (boolean batch : new boolean[]{false, true}) {
+            MDD mdd = new MDD(minla, new MinLPMergeSelector(), new MinLPDeleteSelector(), vs);
+            mdd.setBatchSelection(batch);
+
+            Layer layer = new Layer(minla, mdd, minla.root(), 0);
+            int maxMerges = 0;
+            while (!layer.isFinal()) {
+                long merges = mdd.statistics().merges;
+                layer = layer.nextLayer(width, true);
+
+                assertTrue(layer.width() <= width);
+                maxMerges = Math.max(maxMerges, (int) (mdd.statistics().merges - merges));
+            }
+            // the successors of a single state may exceed the width, the batch selection reduces once anyway
+            if (batch) {
+                assertEquals(maxMerges, 1);
+            } else {
+                assertTrue(maxMerges > 1);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelExpansion() {
+        Random random = new Random(12);
+        int n = 20;
+        LinkedList<Edge> edges = new LinkedList<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextBoolean()) edges.add(new Edge(i, j, random.nextInt(100) - 50));
+            }
+        }
+        MCP mcp = new MCP(n, edges.toArray(new Edge[0]));
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        for (boolean relaxed : new boolean[]{false, true}) {
+            MDD sequential = new MDD(mcp, new MinLPMergeSelector(), new MinLPDeleteSelector(), vs);
+            MDD parallel = new MDD(mcp, new MinLPMergeSelector(), new MinLPDeleteSelector(), vs);
+            parallel.setExpansionPool(pool);
+
+            Layer layer1 = new Layer(mcp, sequential, mcp.root(), 0);
+            Layer layer2 = new Layer(mcp, parallel, mcp.root(), 0);
+            while (!layer1.isFinal()) {
+                // a narrow layer after a wide one expands its states in several chunks
+                int width = layer1.width() > Layer.PARALLEL_THRESHOLD ? Layer.PARALLEL_THRESHOLD : 4 * Layer.PARALLEL_THRESHOLD;
+                layer1 = layer1.nextLayer(width, relaxed);
+                layer2 = layer2.nextLayer(width, relaxed);
+
+                assertEquals(layer1.width(), layer2.width());
+                assertEquals(layer1.isExact(), layer2.isExact());
+                Iterator<State> it = layer2.states().iterator();
+                for (State s1 : layer1.states()) { // same insertion order in both layers
+                    State s2 = it.next();
+                    assertEquals(s1, s2);
+                    assertEquals(Double.compare(s1.value(), s2.value()), 0);
+                }
+            }
+        }
+
+        pool.shutdown();
+    }
+
+    /**
+     * Returns a layer of {@code 2 * Layer.PARALLEL_THRESHOLD} distinct states of the problem, with the first vertex free.
+     */
+    private static Layer wideLayer(MISP misp, MDD mdd) {
+        Random random = new Random(12);
+        Layer layer = new Layer(misp, mdd, 0);
+        for (int i = 0; i < 2 * Layer.PARALLEL_THRESHOLD; i++) {
+            BitSet free = BitSet.valueOf(new long[]{((long) i << 1) | 1});
+            Variable[] variables = new Variable[n];
+            for (int j = 0; j < n; j++) {
+                variables[j] = new Variable(j, 2);
+            }
+            layer.addState(new State(misp.new MISPState(free), variables, random.nextInt(50)));
+        }
+        return layer;
+    }
+
+    @Test
+    public void testParallelExpansionWideLayer() {
+        Random random = new Random(12);
+        double[] weights = new double[n];
+        LinkedList<Edge> edges = new LinkedList<>();
+        for (int i = 0; i < n; i++) {
+            weights[i] = random.nextInt(50);
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextBoolean()) edges.add(new Edge(i, j));
+            }
+        }
+        MISP misp = new MISP(n, weights, edges.toArray(new Edge[0]));
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        for (boolean relaxed : new boolean[]{false, true}) {
+            MDD sequential = new MDD(misp, new MinLPMergeSelector(), new MinLPDeleteSelector(), vs);
+            MDD parallel = new MDD(misp, new MinLPMergeSelector(), new MinLPDeleteSelector(), vs);
+            parallel.setExpansionPool(pool);
+
+            Layer layer1 = wideLayer(misp, sequential);
+            Layer layer2 = wideLayer(misp, parallel);
+            assertEquals(layer2.width(), 2 * Layer.PARALLEL_THRESHOLD);
+
+            // the states are expanded in two chunks and the next layer is reduced
+            layer1 = layer1.nextLayer(Layer.PARALLEL_THRESHOLD, relaxed);
+            layer2 = layer2.nextLayer(Layer.PARALLEL_THRESHOLD, relaxed);
+
+            assertEquals(sequential.statistics().parallelLayers, 0);
+            assertEquals(parallel.statistics().parallelLayers, 1);
+            assertEquals(layer1.width(), Layer.PARALLEL_THRESHOLD);
+            assertEquals(layer1.width(), layer2.width());
+            assertEquals(layer1.isExact(), layer2.isExact());
+            Iterator<State> it = layer2.states().iterator();
+            for (State s1 : layer1.states()) {
+                State s2 = it.next();
+                assertEquals(s1, s2);
+                assertEquals(Double.compare(s1.value(), s2.value()), 0);
+                assertEquals(s1.isExact(), s2.isExact());
+            }
+        }
+
+        pool.shutdown();
+    }
 }
@@ -0,0 +1,83 @@
+package mdd;
+
+import core.Variable;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import problems.Edge;
+import problems.MISP;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class StateTableTest {
+
+    private static int n;
+    private static Variable[] vars;
+    private static MISP p;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        n = 20;
+        vars = new Variable[n];
+        for (int i = 0; i < n; i++) {
+            vars[i] = new Variable(i, 2);
+        }
+        p = new MISP(n, new double[n], new Edge[0]);
+    }
+
+    private static State state(int bits, double value) {
+        BitSet bs = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if ((bits & (1 << i)) != 0) bs.set(i);
+        }
+        return new State(p.new MISPState(bs), vars, value);
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        StateTable table = new StateTable(0);
+
+        assertNull(table.putIfAbsent(state(5, 1)));
+        assertEquals(table.size(), 1);
+
+        State existing = table.putIfAbsent(state(5, 2));
+        assertNotNull(existing);
+        assertEquals(Double.compare(existing.value(), 1), 0);
+        assertEquals(table.size(), 1);
+    }
+
+    @Test
+    public void testRemoveAndGrow() {
+        StateTable table = new StateTable(4);
+        Random random = new Random(12);
+        Set<Integer> inside = new HashSet<>();
+
+        for (int k = 0; k < 5000; k++) {
+            int bits = random.nextInt(1 << 12);
+            if (random.nextBoolean()) {
+                assertEquals(table.putIfAbsent(state(bits, 0)) == null, inside.add(bits));
+            } else {
+                assertEquals(table.remove(state(bits, 0)), inside.remove(bits));
+            }
+            assertEquals(table.size(), inside.size());
+        }
+
+        for (int bits = 0; bits < (1 << 12); bits++) {
+            assertEquals(table.get(state(bits, 0).stateRepresentation) != null, inside.contains(bits));
+        }
+
+        int count = 0;
+        for (State ignored : table) {
+            count++;
+        }
+        assertEquals(count, inside.size());
+
+        table.clear();
+        assertEquals(table.size(), 0);
+        assertFalse(table.iterator().hasNext());
+    }
+}
@@ -81,6 +81,33 @@ public class StateTest {
 
         assertFalse(s1.isExact());
         assertEquals(s1.exactParents().size(), 1);
+
+        s1.clearParents();
+        assertTrue(s1.exactParents().isEmpty());
+    }
+
+    @Test
+    public void testArcs() {
+        StateRepresentation sr = p.new MISPState(n);
+        State exact = new State(sr, vars, 10);
+        State relaxed = new State(sr, vars, 12, false);
+
+        State s = new State(sr, vars, 15, false);
+        s.addArc(exact, 5);
+        s.addArc(relaxed, 3);
+
+        assertEquals(s.nParents(), 2);
+        assertEquals(s.exactParents().size(), 1);
+        assertTrue(s.exactParents().get(0) == exact);
+
+        State merged = new State(sr, vars, 18, false);
+        merged.addParents(s, 3); // the arcs redirected to the merged state give it its value
+        assertEquals(merged.nParents(), 2);
+        assertEquals(Double.compare(merged.gain(0), 8), 0);
+        assertEquals(Double.compare(merged.gain(1), 6), 0);
+
+        merged.clearParents();
+        assertEquals(merged.nParents(), 0);
     }
 
     @Test
@@ -129,4 +156,89 @@ public class StateTest {
         assertFalse(s.equals(s3));
 
     }
+
+    @Test
+    public void testSuccessorAssignment() {
+        StateRepresentation sr = p.new MISPState(n);
+        State s = new State(sr, vars, 0);
+
+        State s1 = s.getSuccessor(sr, 0, 3, 1);
+        State s2 = s1.getSuccessor(sr, 0, 7, 0);
+        State other = s1.getSuccessor(sr, 0, 7, 1);
+
+        assertTrue(s2.isBound(3) && s2.isBound(7));
+        assertFalse(s2.isBound(0));
+        assertFalse(s.isBound(3));
+        assertEquals(s2.freeVariables().length, n - 2);
+
+        int[] assignment = s2.assignment();
+        assertEquals(assignment[3], 1);
+        assertEquals(assignment[7], 0);
+        assertEquals(assignment[0], -1);
+        assertEquals(other.assignment()[7], 1);
+
+        Variable[] variables = s2.variables();
+        assertEquals(variables[0].id, 3);
+        assertEquals(variables[0].value(), 1);
+        assertEquals(variables[1].id, 7);
+        assertEquals(variables[1].value(), 0);
+        assertEquals(vars[3].value(), -1); // the original variables are left untouched
+
+        State merged = new State(sr, other, 5, false);
+        assertEquals(merged.getVariable(7).value(), 1);
+        assertEquals(merged.layerNumber(), 2);
+    }
+
+    private static class CountingRepresentation implements StateRepresentation {
+
+        int key, hashes, ranks;
+
+        CountingRepresentation(int key) {
+            this.key = key;
+        }
+
+        public int hashCode() {
+            this.hashes++;
+            return this.key;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof CountingRepresentation && ((CountingRepresentation) o).key == this.key;
+        }
+
+        public double rank(State state) {
+            this.ranks++;
+            return state.value() + this.key;
+        }
+
+        public CountingRepresentation copy() {
+            return new CountingRepresentation(this.key);
+        }
+    }
+
+    @Test
+    public void testCachedHashAndRank() {
+        CountingRepresentation sr = new CountingRepresentation(7);
+        State s = new State(sr, vars, 1);
+
+        assertEquals(7, s.hashCode());
+        assertEquals(7, s.hashCode());
+        assertEquals(8, s.rank(), 0);
+        assertEquals(8, s.rank(), 0);
+        assertEquals(1, sr.hashes);
+        assertEquals(1, sr.ranks);
+
+        // the rank follows the value of the state
+        s.update(new State(new CountingRepresentation(7), vars, 5));
+        assertEquals(12, s.rank(), 0);
+        assertEquals(2, sr.ranks);
+
+        // a representation modified in place is hashed again after invalidate
+        sr.key = 3;
+        assertEquals(7, s.hashCode());
+        s.invalidate();
+        assertEquals(3, s.hashCode());
+        assertEquals(8, s.rank(), 0);
+        assertEquals(2, sr.hashes);
+    }
 }
@@ -0,0 +1,75 @@
+package problems;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.*;
+
+public class InstanceCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(this.folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        File file = write("triangle.clq", "c opt 3\np edge 4 3\ne 1 2\ne 2 3\ne 1 3\n");
+        File cache = new File(file.getPath() + InstanceCache.SUFFIX);
+
+        MISP p = MISP.readDIMACS(file.getPath());
+        assertTrue(cache.exists());
+        assertEquals(4, p.nVariables());
+        assertEquals(3, p.opt, 0);
+
+        long written = cache.lastModified();
+        p = MISP.readDIMACS(file.getPath());
+        assertEquals(written, cache.lastModified());
+        assertEquals(4, p.nVariables());
+        assertEquals(3, p.opt, 0);
+
+        // the copy is rebuilt when the source changes
+        write("triangle.clq", "c opt 2\np edge 5 1\ne 1 2\n");
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(file.lastModified() + 1000));
+        p = MISP.readDIMACS(file.getPath());
+        assertEquals(5, p.nVariables());
+        assertEquals(2, p.opt, 0);
+    }
+
+    @Test
+    public void testWeightedCache() throws IOException {
+        File file = write("small.wcnf", "c opt 7\np wcnf 3 3\n3 1 -2 0\n4 -3 0\n2 2 3 0\n");
+
+        MAX2SAT.readDIMACS(file.getPath());
+        InstanceCache.Instance cached = InstanceCache.read(file.getPath(), path -> {
+            throw new AssertionError("the text file is not parsed when it is cached");
+        });
+        assertEquals(7, cached.opt, 0);
+        assertEquals(6, cached.rows());
+        assertEquals(3, cached.targets.length);
+        assertEquals(9, cached.weights[0] + cached.weights[1] + cached.weights[2], 0);
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+        File file = write("path.clq", "p edge 3 2\ne 1 2\ne 2 3\n");
+        System.setProperty("mddsolver.cache", "false");
+        try {
+            MISP.readDIMACS(file.getPath());
+            assertFalse(new File(file.getPath() + InstanceCache.SUFFIX).exists());
+        } finally {
+            System.clearProperty("mddsolver.cache");
+        }
+    }
+}
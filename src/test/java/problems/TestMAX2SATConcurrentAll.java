@@ -0,0 +1,45 @@
+package problems;
+
+import core.Solver;
+import heuristics.MinLPDeleteSelector;
+import heuristics.MinLPMergeSelector;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Solves all the MAX2SAT instances at the same time, each one with its own solver.
+ */
+public class TestMAX2SATConcurrentAll {
+
+    @Test
+    public void testConcurrent() throws Exception {
+        Object[] paths = TestHelper.dataFromFolder("data/max2sat");
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            List<MAX2SAT> problems = new ArrayList<>();
+            for (Object path : paths) {
+                MAX2SAT p = MAX2SAT.readDIMACS((String) path);
+                problems.add(p);
+                results.add(executor.submit(() -> {
+                    Solver solver = new Solver(p, new MinLPMergeSelector(), new MinLPDeleteSelector(), new MAX2SAT.MAX2SATVariableSelector(p));
+                    return solver.solve().value();
+                }));
+            }
+
+            for (int i = 0; i < paths.length; i++) {
+                assertEquals((String) paths[i], problems.get(i).opt, results.get(i).get(), 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
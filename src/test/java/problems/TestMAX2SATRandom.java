@@ -5,8 +5,13 @@ import core.Solver;
 import heuristics.*;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 
@@ -15,7 +20,7 @@ public class TestMAX2SATRandom {
 
     private static Random random = new Random(12);
 
-    private static Problem generate(int n) {
+    private static MAX2SAT generate(int n) {
         LinkedList<Clause> clauses = new LinkedList<>();
 
         for (int i = 0; i < n; i++) {
@@ -42,11 +47,42 @@ public class TestMAX2SATRandom {
     public void testRandom() {
         MergeSelector ms = new MinLPMergeSelector();
         DeleteSelector ds = new MinLPDeleteSelector();
-        VariableSelector vs = new MAX2SAT.MAX2SATVariableSelector();
 
-        assertEquals(Double.compare(run(generate(5), ms, ds, vs), 56), 0);
-        assertEquals(Double.compare(run(generate(10), ms, ds, vs), 107), 0);
-        assertEquals(Double.compare(run(generate(20), ms, ds, vs), 282), 0);
-        assertEquals(Double.compare(run(generate(30), ms, ds, vs), 365), 0);
+        MAX2SAT p = generate(5);
+        assertEquals(Double.compare(run(p, ms, ds, new MAX2SAT.MAX2SATVariableSelector(p)), 56), 0);
+        p = generate(10);
+        assertEquals(Double.compare(run(p, ms, ds, new MAX2SAT.MAX2SATVariableSelector(p)), 107), 0);
+        p = generate(20);
+        assertEquals(Double.compare(run(p, ms, ds, new MAX2SAT.MAX2SATVariableSelector(p)), 282), 0);
+        p = generate(30);
+        assertEquals(Double.compare(run(p, ms, ds, new MAX2SAT.MAX2SATVariableSelector(p)), 365), 0);
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        int[] sizes = {5, 10, 20, 30};
+        MAX2SAT[] problems = new MAX2SAT[sizes.length];
+        double[] optimal = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            problems[i] = generate(sizes[i]);
+            optimal[i] = run(problems[i], new MinLPMergeSelector(), new MinLPDeleteSelector(), new MAX2SAT.MAX2SATVariableSelector(problems[i]));
+        }
+
+        // every problem is solved several times at once with the other ones
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int k = 0; k < 3; k++) {
+                for (MAX2SAT p : problems) {
+                    results.add(executor.submit(() -> run(p, new MinLPMergeSelector(), new MinLPDeleteSelector(),
+                            new MAX2SAT.MAX2SATVariableSelector(p))));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(optimal[i % sizes.length], results.get(i).get(), 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
     }
 }
@@ -0,0 +1,76 @@
+package problems;
+
+import core.Problem;
+import core.Solver;
+import heuristics.*;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@SuppressWarnings("unused")
+public class TestMinLARandom {
+
+    static Random random = new Random(12);
+
+    private static Edge[] generate(int n) {
+        LinkedList<Edge> edges = new LinkedList<>();
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextInt(3) == 0) {
+                    edges.add(new Edge(i, j, -1 - random.nextInt(9)));
+                }
+            }
+        }
+
+        Edge[] input = new Edge[edges.size()];
+        edges.toArray(input);
+
+        return input;
+    }
+
+    private static double run(Problem p, MergeSelector mergeSelector, DeleteSelector deleteSelector, VariableSelector variableSelector) {
+        Solver solver = new Solver(p, mergeSelector, deleteSelector, variableSelector);
+        return solver.solve().value();
+    }
+
+    /**
+     * @return the value of the best arrangement, found by enumerating all of them
+     */
+    private static double bruteForce(int n, Edge[] edges, int[] positions, boolean[] used, int k) {
+        if (k == n) {
+            double value = 0;
+            for (Edge e : edges) {
+                value += e.w * Math.abs(positions[e.u] - positions[e.v]);
+            }
+            return value;
+        }
+
+        double best = -Double.MAX_VALUE;
+        for (int u = 0; u < n; u++) {
+            if (!used[u]) {
+                used[u] = true;
+                positions[u] = k;
+                best = Math.max(best, bruteForce(n, edges, positions, used, k + 1));
+                used[u] = false;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void testRandom() {
+        MergeSelector ms = new MinLPMergeSelector();
+        DeleteSelector ds = new MinLPDeleteSelector();
+        VariableSelector vs = new SimpleVariableSelector();
+
+        for (int n = 3; n <= 8; n++) {
+            Edge[] edges = generate(n);
+            double expected = bruteForce(n, edges, new int[n], new boolean[n], 0);
+            assertEquals(Double.compare(run(new MinLA(n, edges), ms, ds, vs), expected), 0);
+        }
+    }
+}
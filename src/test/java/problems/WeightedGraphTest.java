@@ -0,0 +1,66 @@
+package problems;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WeightedGraphTest {
+
+    private static Edge[] randomEdges(int n, Random random) {
+        Edge[] edges = new Edge[4 * n];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new Edge(random.nextInt(n), random.nextInt(n), random.nextInt(100) - 50);
+        }
+        return edges;
+    }
+
+    private static void check(int n, Edge[] edges) {
+        WeightedGraph g = new WeightedGraph(n, edges);
+        Map<Integer, Double>[] map = Edge.toWeightedGraph(n, edges);
+
+        assertEquals(n, g.size());
+        for (int u = 0; u < n; u++) {
+            assertEquals(map[u].size(), g.degree(u));
+            for (int k = g.begin(u); k < g.end(u); k++) {
+                if (k > g.begin(u)) {
+                    assertTrue(g.neighbour(k - 1) < g.neighbour(k));
+                }
+                assertEquals(map[u].get(g.neighbour(k)), g.weight(k), 0);
+            }
+            for (int v = 0; v < n; v++) {
+                assertEquals(map[u].getOrDefault(v, 0.0), g.weight(u, v), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testSmall() {
+        // duplicated edges keep the last weight, as in Edge.toWeightedGraph
+        Edge[] edges = {new Edge(0, 1, 3), new Edge(2, 1, 4), new Edge(1, 0, 5), new Edge(3, 3, 1)};
+        WeightedGraph g = new WeightedGraph(4, edges);
+
+        assertEquals(5, g.weight(0, 1), 0);
+        assertEquals(5, g.weight(1, 0), 0);
+        assertEquals(0, g.weight(0, 2), 0);
+        assertEquals(2, g.degree(1));
+        assertEquals(1, g.degree(3));
+        check(4, edges);
+    }
+
+    @Test
+    public void testDense() {
+        Random random = new Random(12);
+        check(50, randomEdges(50, random));
+    }
+
+    @Test
+    public void testSparse() {
+        Random random = new Random(12);
+        int n = WeightedGraph.DENSE_LIMIT + 10;
+        check(n, randomEdges(n, random));
+    }
+}